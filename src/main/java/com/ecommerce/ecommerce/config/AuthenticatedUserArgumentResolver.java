@@ -0,0 +1,72 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.exception.InvalidCredentialsException;
+import com.ecommerce.ecommerce.models.AuthenticatedUser;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import com.ecommerce.ecommerce.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link AuthenticatedUser} controller parameters from the bearer token, once per request.
+ * <p>
+ * The user id and admin flag come from the token's claims, so no user lookup is needed. Tokens issued before
+ * those claims existed fall back to one lookup by email. A missing, invalid or expired token, or a legacy
+ * token whose user no longer exists, is rejected with {@link InvalidCredentialsException} (401).
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                             NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof AuthenticatedUser user) {
+            return user;
+        }
+        AuthenticatedUser user = authenticate(webRequest.getHeader(HttpHeaders.AUTHORIZATION));
+        webRequest.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    private AuthenticatedUser authenticate(String authHeader) {
+        String token = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : authHeader;
+        if (token == null || token.isBlank()) {
+            throw new InvalidCredentialsException("Missing authentication token");
+        }
+
+        AuthenticatedUser user;
+        try {
+            user = jwtUtil.extractUser(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Invalid or expired token");
+        }
+        if (user.userId() != null) {
+            return user;
+        }
+
+        EcommerceUsers account = userRepository.findByEmail(user.email())
+                .orElseThrow(() -> new InvalidCredentialsException("User not found"));
+        return new AuthenticatedUser(account.getId(), account.getEmail(), Boolean.TRUE.equals(account.getIsAdmin()));
+    }
+}
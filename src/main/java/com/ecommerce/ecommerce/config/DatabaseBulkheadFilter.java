@@ -0,0 +1,146 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many {@code /api} requests run at once, so request concurrency cannot outgrow the Hikari pool.
+ * <p>
+ * With virtual threads Tomcat no longer bounds concurrency by its thread pool: every request gets a thread
+ * and would queue inside Hikari until {@code connection-timeout}, holding memory and failing late. Here a
+ * request waits at most {@code db.bulkhead.max-wait} for one of {@code db.bulkhead.max-concurrent} permits
+ * and is otherwise answered 503 with {@code Retry-After}. Free permits are exposed as
+ * {@code db.bulkhead.available}; rejections are counted in {@code db.bulkhead.rejected}.
+ * <p>
+ * A request that goes async, such as a streamed order export, keeps its permit until the async request
+ * completes, errors or times out: its body is written from another thread after the first dispatch returns,
+ * still holding a connection.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "db.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final JsonMapper jsonMapper;
+    private final Counter rejected;
+
+    public DatabaseBulkheadFilter(@Value("${db.bulkhead.max-concurrent:20}") int maxConcurrent,
+                                  @Value("${db.bulkhead.max-wait:2s}") Duration maxWait,
+                                  JsonMapper jsonMapper,
+                                  MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.jsonMapper = jsonMapper;
+        Gauge.builder("db.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free request permits in front of the database pool")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("db.bulkhead.rejected")
+                .description("Requests turned away because the database bulkhead was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            log.warn("Database bulkhead full, rejecting {} {}", request.getMethod(), request.getRequestURI());
+            reject(response);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Hands the permit back when the async request ends. An error or timeout is followed by a completion,
+     * so the release is guarded to happen once.
+     */
+    private class ReleaseOnCompletion implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // an async redispatch started again; keep the permit and the listener
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        ProductResponse<Void> body = ProductResponse.<Void>builder()
+                .status("error")
+                .message("Server is busy, please retry shortly")
+                .build();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(jsonMapper.writeValueAsBytes(body));
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.ecommerce.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves tables that used to get identity ids over to their Hibernate sequence.
+ * <p>
+ * {@code ddl-auto=update} creates a missing sequence starting at 1, which would hand out ids that the
+ * identity column already used. Before the application serves requests, each sequence is advanced past
+ * the highest existing id plus one allocation block, which is safe whether the optimizer treats the value
+ * it reads as the top (pooled) or the bottom (pooled-lo) of its block. Sequences that are already ahead
+ * are left alone.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class IdSequenceMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    // table -> sequence, keep in sync with the @SequenceGenerator on each entity
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "products", "products_seq",
+            "orders", "orders_seq",
+            "purchased_products", "purchased_products_seq",
+            "categories", "categories_seq",
+            "ecommerce_users", "ecommerce_users_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCES.forEach((table, sequence) -> {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST(" +
+                            "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE + ", " +
+                            "(SELECT last_value FROM " + sequence + ")))",
+                    Long.class);
+            log.info("Sequence {} aligned with {} (last value {})", sequence, table, value);
+        });
+    }
+}
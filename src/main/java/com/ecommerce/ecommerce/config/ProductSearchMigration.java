@@ -0,0 +1,120 @@
+package com.ecommerce.ecommerce.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Adds the full-text search column that {@code ProductRepository.searchProducts} queries.
+ * <p>
+ * {@code search_vector} holds the title weighted above the description under the {@code simple}
+ * configuration, which skips stemming and keeps prefix matches on product names predictable. The migration
+ * runs online, so it never blocks catalog reads and writes for longer than a catalog lookup:
+ * <ol>
+ *   <li>adds a plain nullable column, which only touches the catalog, and a trigger that keeps it current
+ *   on every insert and on updates of title or description;</li>
+ *   <li>backfills existing rows {@code search.migration.batch-size} at a time, each batch its own
+ *   transaction;</li>
+ *   <li>builds the GIN index with {@code CREATE INDEX CONCURRENTLY}, outside any transaction, replacing an
+ *   invalid index left behind by an interrupted build.</li>
+ * </ol>
+ * Every step is a no-op once applied. A database migrated by the earlier version already has a stored
+ * generated column, which needs neither trigger nor backfill. Off by default; enable it with
+ * {@code search.migration.enabled=true} on one instance for the deployment that introduces search.
+ * Products not backfilled yet simply do not match a search.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "search.migration.enabled", havingValue = "true")
+public class ProductSearchMigration {
+
+    private static final String SEARCH_VECTOR_OF_NEW =
+            "setweight(to_tsvector('simple', coalesce(NEW.title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple', coalesce(NEW.description, '')), 'B')";
+    private static final String SEARCH_VECTOR =
+            "setweight(to_tsvector('simple', coalesce(p.title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple', coalesce(p.description, '')), 'B')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ProductSearchMigration(JdbcTemplate jdbcTemplate,
+                                  @Value("${search.migration.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!isGeneratedColumn()) {
+            addColumnAndTrigger();
+            backfill();
+        }
+        createIndex();
+        log.info("Product search index ready");
+    }
+
+    private boolean isGeneratedColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() " +
+                        "AND table_name = 'products' AND column_name = 'search_vector' AND is_generated = 'ALWAYS')",
+                Boolean.class));
+    }
+
+    private void addColumnAndTrigger() {
+        jdbcTemplate.execute("ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION products_search_vector() RETURNS trigger " +
+                "LANGUAGE plpgsql AS $$ BEGIN NEW.search_vector := " + SEARCH_VECTOR_OF_NEW + "; RETURN NEW; END $$");
+        Boolean triggerExists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'products_search_vector' " +
+                        "AND tgrelid = 'products'::regclass)",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(triggerExists)) {
+            jdbcTemplate.execute("CREATE TRIGGER products_search_vector " +
+                    "BEFORE INSERT OR UPDATE OF title, description ON products " +
+                    "FOR EACH ROW EXECUTE FUNCTION products_search_vector()");
+        }
+    }
+
+    private void backfill() {
+        long total = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            // walks the primary key in autocommit batches, so each holds its row locks only until it commits
+            Map<String, Object> batch = jdbcTemplate.queryForMap(
+                    "WITH batch AS (SELECT id FROM products WHERE id > ? ORDER BY id LIMIT ?), " +
+                            "updated AS (UPDATE products p SET search_vector = " + SEARCH_VECTOR + " FROM batch " +
+                            "WHERE p.id = batch.id AND p.search_vector IS NULL RETURNING p.id) " +
+                            "SELECT (SELECT max(id) FROM batch) AS last_id, (SELECT count(*) FROM updated) AS updated",
+                    lastId, batchSize);
+            if (batch.get("last_id") == null) {
+                break;
+            }
+            lastId = ((Number) batch.get("last_id")).longValue();
+            total += ((Number) batch.get("updated")).longValue();
+        }
+        if (total > 0) {
+            log.info("Backfilled search_vector for {} products", total);
+        }
+    }
+
+    private void createIndex() {
+        Boolean invalid = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "WHERE c.relname = 'idx_products_search' AND NOT i.indisvalid)",
+                Boolean.class);
+        if (Boolean.TRUE.equals(invalid)) {
+            log.warn("Dropping invalid idx_products_search left by an interrupted build");
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS idx_products_search");
+        }
+        // CONCURRENTLY cannot run inside a transaction; JdbcTemplate runs this on an autocommit connection
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_search " +
+                "ON products USING GIN (search_vector)");
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.ecommerce.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache regions, held in-process by Caffeine behind JCache.
+ * <p>
+ * The cache manager is built here rather than from a provider config file so every region is bounded:
+ * Caffeine's JCache defaults are unbounded. Entity regions also expire after a while as a safety net for
+ * writes that bypass Hibernate; the stock decrements soft-lock their rows like Hibernate's own updates (see
+ * {@code ProductRepositoryCustomImpl}). The update-timestamps region is never evicted, as the query cache
+ * requires.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PRODUCTS_REGION = "products";
+    public static final String CATEGORIES_REGION = "categories";
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.l2.products.max-size:10000}") long productsMaxSize,
+            @Value("${cache.l2.categories.max-size:1000}") long categoriesMaxSize,
+            @Value("${cache.l2.time-to-live:10m}") Duration timeToLive) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(PRODUCTS_REGION, region(productsMaxSize, timeToLive));
+        cacheManager.createCache(CATEGORIES_REGION, region(categoriesMaxSize, timeToLive));
+        cacheManager.createCache(QUERY_RESULTS_REGION, region(1000, timeToLive));
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration timeToLive) {
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maxSize))
+                .setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+    }
+}
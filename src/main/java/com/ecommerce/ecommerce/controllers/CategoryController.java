@@ -3,27 +3,29 @@ package com.ecommerce.ecommerce.controllers;
 import com.ecommerce.ecommerce.models.CategoryRequest;
 import com.ecommerce.ecommerce.models.CategoryResponse;
 import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.service.CatalogResponseCache;
 import com.ecommerce.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/categories")
 @RequiredArgsConstructor
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogResponseCache catalogResponseCache;
 
     @GetMapping
-    public ResponseEntity<ProductResponse<List<CategoryResponse>>> getAllCategories() {
-        ProductResponse<List<CategoryResponse>> response = categoryService.getAllCategories();
-        if ("error".equals(response.getStatus())) {
-            return ResponseEntity.badRequest().body(response);
-        }
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getAllCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // product counts are part of the response, so any catalog change is a new version
+        return catalogResponseCache.respond(CatalogResponseCache.CATEGORIES, "all",
+                catalogResponseCache.catalogVersion(), ifNoneMatch,
+                categoryService::getAllCategories, HttpStatus.BAD_REQUEST);
     }
 
     @GetMapping("/{id}")
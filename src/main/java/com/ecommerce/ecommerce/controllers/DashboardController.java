@@ -2,6 +2,8 @@ package com.ecommerce.ecommerce.controllers;
 
 import com.ecommerce.ecommerce.models.*;
 import com.ecommerce.ecommerce.service.DashboardService;
+import com.ecommerce.ecommerce.service.DashboardSnapshotService;
+import com.ecommerce.ecommerce.service.SalesRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,10 +16,16 @@ import java.util.List;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final SalesRollupService salesRollupService;
 
     @GetMapping
-    public ResponseEntity<ProductResponse<DashboardResponse>> getDashboard() {
-        ProductResponse<DashboardResponse> response = dashboardService.getDashboard();
+    public ResponseEntity<ProductResponse<DashboardResponse>> getDashboard(
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        // served from the snapshot; refresh=true waits for a recomputation instead
+        ProductResponse<DashboardResponse> response = refresh
+                ? dashboardSnapshotService.refresh().join()
+                : dashboardSnapshotService.getDashboard();
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
@@ -35,8 +43,9 @@ public class DashboardController {
 
     @GetMapping("/top-products")
     public ResponseEntity<ProductResponse<List<TopProductResponse>>> getTopProducts(
-            @RequestParam(defaultValue = "10") int limit) {
-        ProductResponse<List<TopProductResponse>> response = dashboardService.getTopSellingProducts(limit);
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Integer days) {
+        ProductResponse<List<TopProductResponse>> response = dashboardService.getTopSellingProducts(limit, days);
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
@@ -63,11 +72,20 @@ public class DashboardController {
 
     @GetMapping("/recent-orders")
     public ResponseEntity<ProductResponse<List<RecentOrderResponse>>> getRecentOrders(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(required = false) Integer limit) {
         ProductResponse<List<RecentOrderResponse>> response = dashboardService.getRecentOrdersList(limit);
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ProductResponse<Void>> rebuildRollups() {
+        ProductResponse<Void> response = salesRollupService.rebuild();
+        if ("error".equals(response.getStatus())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
 }
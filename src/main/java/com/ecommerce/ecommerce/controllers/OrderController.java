@@ -0,0 +1,46 @@
+package com.ecommerce.ecommerce.controllers;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.service.OrderExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+public class OrderController {
+
+    private final OrderExportService orderExportService;
+
+    @GetMapping("/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromParameter(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().body(ProductResponse.<Void>builder()
+                    .status("error")
+                    .message("Unsupported export format: " + format + " (use csv or ndjson)")
+                    .build());
+        }
+
+        // written from an async thread once the headers are sent; the export opens its own transaction
+        StreamingResponseBody body = out -> orderExportService.export(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -4,12 +4,14 @@ import com.ecommerce.ecommerce.models.CreateProductRequest;
 import com.ecommerce.ecommerce.models.FetchProductResponse;
 import com.ecommerce.ecommerce.models.ProductResponse;
 import com.ecommerce.ecommerce.models.UpdateProductRequest;
+import com.ecommerce.ecommerce.service.CatalogResponseCache;
 import com.ecommerce.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/products")
@@ -17,23 +19,44 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogResponseCache catalogResponseCache;
 
+    /**
+     * Offset pagination by default; passing {@code cursor} (empty for the first page) switches to keyset
+     * pagination, which returns a {@code nextCursor} instead of relying on page numbers.
+     * Answers {@code If-None-Match} with 304 while the catalog is unchanged.
+     */
     @GetMapping
-    public ResponseEntity<ProductResponse<List<FetchProductResponse>>> fetchProducts(
+    public ResponseEntity<?> fetchProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int limit,
-            @RequestParam(required = false) String searchQuery) {
-        ProductResponse<List<FetchProductResponse>> response = productService.fetchProducts(page, limit, searchQuery);
-        return ResponseEntity.ok(response);
+            @RequestParam(required = false) String searchQuery,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (cursor != null && searchQuery != null && !searchQuery.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(ProductResponse.builder()
+                    .status("error")
+                    .message("Cursor pagination cannot be combined with searchQuery")
+                    .build());
+        }
+        String parameters = "page=" + page + "&limit=" + limit + "&searchQuery=" + searchQuery + "&cursor=" + cursor;
+        if (cursor == null) {
+            return catalogResponseCache.respond(CatalogResponseCache.PRODUCTS, parameters,
+                    catalogResponseCache.catalogVersion(), ifNoneMatch,
+                    () -> productService.fetchProducts(page, limit, searchQuery), HttpStatus.OK);
+        }
+        return catalogResponseCache.respond(CatalogResponseCache.PRODUCTS, parameters,
+                catalogResponseCache.catalogVersion(), ifNoneMatch,
+                () -> productService.fetchProductsAfter(cursor, limit), HttpStatus.BAD_REQUEST);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse<FetchProductResponse>> getProductById(@PathVariable Long id) {
-        ProductResponse<FetchProductResponse> response = productService.getProductById(id);
-        if ("error".equals(response.getStatus())) {
-            return ResponseEntity.badRequest().body(response);
-        }
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponseCache.respond(CatalogResponseCache.PRODUCTS, "id=" + id,
+                catalogResponseCache.productVersion(id), ifNoneMatch,
+                () -> productService.getProductById(id), HttpStatus.BAD_REQUEST);
     }
 
     @PostMapping(consumes = "multipart/form-data")
@@ -0,0 +1,43 @@
+package com.ecommerce.ecommerce.controllers;
+
+import com.ecommerce.ecommerce.models.ProductImportJobResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.service.ProductImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/admin/products/import")
+@RequiredArgsConstructor
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+
+    /**
+     * Starts an import and answers 202 with the job; poll {@code GET /{jobId}} for progress.
+     * {@code format} (csv or ndjson) defaults to the file extension.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductResponse<ProductImportJobResponse>> startImport(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        ProductResponse<ProductImportJobResponse> response = productImportService.startImport(file, format);
+        if ("success".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ProductResponse<ProductImportJobResponse>> getImport(@PathVariable String jobId) {
+        ProductResponse<ProductImportJobResponse> response = productImportService.getJob(jobId);
+        if ("success".equals(response.getStatus())) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.badRequest().body(response);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce.controllers;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.models.ProductSuggestion;
+import com.ecommerce.ecommerce.service.ProductSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+public class ProductSuggestController {
+
+    private static final int MAX_LIMIT = 20;
+
+    private final ProductSuggestIndex productSuggestIndex;
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ProductResponse<List<ProductSuggestion>>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        if (!productSuggestIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ProductResponse.<List<ProductSuggestion>>builder()
+                    .status("error")
+                    .message("Suggestions are not available")
+                    .build());
+        }
+        List<ProductSuggestion> suggestions = productSuggestIndex.suggest(q, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(ProductResponse.<List<ProductSuggestion>>builder()
+                .status("success")
+                .message("Suggestions fetched successfully")
+                .data(suggestions)
+                .build());
+    }
+}
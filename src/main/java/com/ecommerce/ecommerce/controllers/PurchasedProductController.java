@@ -1,5 +1,6 @@
 package com.ecommerce.ecommerce.controllers;
 
+import com.ecommerce.ecommerce.models.AuthenticatedUser;
 import com.ecommerce.ecommerce.models.BulkPurchaseRequest;
 import com.ecommerce.ecommerce.models.ProductResponse;
 import com.ecommerce.ecommerce.models.PurchaseProductRequest;
@@ -20,9 +21,8 @@ public class PurchasedProductController {
 
     @GetMapping
     public ResponseEntity<ProductResponse<List<PurchasedProductResponse>>> getPurchasedProducts(
-            @RequestHeader("Authorization") String authHeader) {
-        String token = extractToken(authHeader);
-        ProductResponse<List<PurchasedProductResponse>> response = purchasedProductService.getPurchasedProducts(token);
+            AuthenticatedUser user) {
+        ProductResponse<List<PurchasedProductResponse>> response = purchasedProductService.getPurchasedProducts(user);
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
@@ -31,10 +31,9 @@ public class PurchasedProductController {
 
     @PostMapping
     public ResponseEntity<ProductResponse<PurchasedProductResponse>> purchaseProduct(
-            @RequestHeader("Authorization") String authHeader,
+            AuthenticatedUser user,
             @RequestBody PurchaseProductRequest request) {
-        String token = extractToken(authHeader);
-        ProductResponse<PurchasedProductResponse> response = purchasedProductService.purchaseProduct(token, request);
+        ProductResponse<PurchasedProductResponse> response = purchasedProductService.purchaseProduct(user, request);
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
@@ -43,20 +42,12 @@ public class PurchasedProductController {
 
     @PostMapping("/bulk")
     public ResponseEntity<ProductResponse<List<PurchasedProductResponse>>> purchaseProducts(
-            @RequestHeader("Authorization") String authHeader,
+            AuthenticatedUser user,
             @RequestBody BulkPurchaseRequest request) {
-        String token = extractToken(authHeader);
-        ProductResponse<List<PurchasedProductResponse>> response = purchasedProductService.purchaseProducts(token, request);
+        ProductResponse<List<PurchasedProductResponse>> response = purchasedProductService.purchaseProducts(user, request);
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
         return ResponseEntity.ok(response);
     }
-
-    private String extractToken(String authHeader) {
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        }
-        return authHeader;
-    }
 }
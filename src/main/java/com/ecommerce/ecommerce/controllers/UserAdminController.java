@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.controllers;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.service.RegisteredEmailFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class UserAdminController {
+
+    private final RegisteredEmailFilter registeredEmailFilter;
+
+    @PostMapping("/email-filter/rebuild")
+    public ResponseEntity<ProductResponse<Void>> rebuildEmailFilter() {
+        ProductResponse<Void> response = registeredEmailFilter.rebuild();
+        if ("error".equals(response.getStatus())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
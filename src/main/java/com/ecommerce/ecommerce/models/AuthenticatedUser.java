@@ -0,0 +1,8 @@
+package com.ecommerce.ecommerce.models;
+
+/**
+ * The caller of an authenticated request, taken from the token's claims. Declare it as a controller
+ * method parameter to have it resolved from the {@code Authorization} header.
+ */
+public record AuthenticatedUser(Long userId, String email, boolean admin) {
+}
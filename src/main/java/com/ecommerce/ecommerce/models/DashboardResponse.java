@@ -6,10 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class DashboardResponse {
@@ -18,6 +20,13 @@ public class DashboardResponse {
     private List<CategoryStatsResponse> categoryStats;
     private List<LowStockProductResponse> lowStockProducts;
     private List<RecentOrderResponse> recentOrders;
+    private LocalDateTime generatedAt;
+    // true when some sections failed or timed out; those are listed in degradedSections and are either null
+    // or, in the snapshot, carried over from the previous one
+    private boolean degraded;
+    private List<String> degradedSections;
+    // wall time per section in milliseconds
+    private Map<String, Long> sectionTimings;
 
     @Data
     @Builder
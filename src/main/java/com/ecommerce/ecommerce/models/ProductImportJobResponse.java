@@ -0,0 +1,36 @@
+package com.ecommerce.ecommerce.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobResponse {
+    private String jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private String format;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    // first failures only (see import.products.max-reported-failures)
+    private List<RowFailure> failures;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowFailure {
+        private long row;
+        private String message;
+    }
+}
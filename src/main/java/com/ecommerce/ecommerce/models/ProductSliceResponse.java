@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSliceResponse {
+    private List<FetchProductResponse> products;
+    private String nextCursor;
+    private boolean hasNext;
+}
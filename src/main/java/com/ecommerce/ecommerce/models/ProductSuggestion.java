@@ -0,0 +1,13 @@
+package com.ecommerce.ecommerce.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+    private Long id;
+    private String title;
+}
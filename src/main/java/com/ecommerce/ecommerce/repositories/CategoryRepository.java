@@ -1,11 +1,47 @@
 package com.ecommerce.ecommerce.repositories;
 
 import com.ecommerce.ecommerce.schemas.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    // categories are read on every listing and rarely change, so the list lives in the query cache
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Category> findAll();
+
     Optional<Category> findByName(String name);
     boolean existsByName(String name);
+
+    @Query("SELECT c.id AS categoryId, c.name AS categoryName, COUNT(p.id) AS productCount, " +
+            "COALESCE(r.itemsSold, 0) AS totalSold, COALESCE(r.revenue, 0) AS totalRevenue " +
+            "FROM Category c LEFT JOIN Products p ON p.categoryId = c.id " +
+            "LEFT JOIN CategorySalesRollup r ON r.categoryId = c.id " +
+            "GROUP BY c.id, c.name, r.itemsSold, r.revenue " +
+            "ORDER BY COALESCE(r.itemsSold, 0) DESC, c.id")
+    List<CategoryStatsRow> findCategoryStats();
+
+    @Query("SELECT c.id AS id, c.name AS name FROM Category c ORDER BY c.id")
+    List<CategoryName> findAllNames();
+
+    interface CategoryName {
+        Long getId();
+        String getName();
+    }
+
+    interface CategoryStatsRow {
+        Long getCategoryId();
+        String getCategoryName();
+        long getProductCount();
+        long getTotalSold();
+        BigDecimal getTotalRevenue();
+    }
 }
@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce.repositories;
+
+import com.ecommerce.ecommerce.schemas.HourlySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface HourlySalesRollupRepository extends JpaRepository<HourlySalesRollup, LocalDateTime> {
+
+    @Query("SELECT " +
+            "COALESCE(SUM(h.revenue), 0) AS totalRevenue, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :today THEN h.revenue END), 0) AS todayRevenue, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :week THEN h.revenue END), 0) AS weekRevenue, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :month THEN h.revenue END), 0) AS monthRevenue, " +
+            "COALESCE(SUM(h.orderCount), 0) AS totalOrders, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :today THEN h.orderCount END), 0) AS todayOrders, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :week THEN h.orderCount END), 0) AS weekOrders, " +
+            "COALESCE(SUM(CASE WHEN h.bucketStart >= :month THEN h.orderCount END), 0) AS monthOrders, " +
+            "COALESCE(SUM(h.itemsSold), 0) AS totalItemsSold " +
+            "FROM HourlySalesRollup h")
+    SalesWindowStats getSalesWindowStats(@Param("today") LocalDateTime today,
+                                         @Param("week") LocalDateTime week,
+                                         @Param("month") LocalDateTime month);
+
+    interface SalesWindowStats {
+        BigDecimal getTotalRevenue();
+        BigDecimal getTodayRevenue();
+        BigDecimal getWeekRevenue();
+        BigDecimal getMonthRevenue();
+        long getTotalOrders();
+        long getTodayOrders();
+        long getWeekOrders();
+        long getMonthOrders();
+        long getTotalItemsSold();
+    }
+}
@@ -1,18 +1,26 @@
 package com.ecommerce.ecommerce.repositories;
 
 import com.ecommerce.ecommerce.schemas.Orders;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Orders, Long> {
     List<Orders> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     List<Orders> findByStatus(String status);
 
+    List<Orders> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
     @Query("SELECT COUNT(o) FROM Orders o WHERE o.createdAt >= :startDate")
     long countOrdersSince(@Param("startDate") LocalDateTime startDate);
 
@@ -21,4 +29,36 @@ public interface OrderRepository extends JpaRepository<Orders, Long> {
 
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Orders o WHERE o.status = 'COMPLETED' AND o.createdAt >= :startDate")
     java.math.BigDecimal getRevenueSince(@Param("startDate") LocalDateTime startDate);
+
+    /**
+     * One row per order line (orders without lines appear once with null line columns), ordered by order.
+     * Read through a server-side cursor in chunks of the fetch size; must be consumed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o.id AS orderId, o.createdAt AS createdAt, o.status AS status, o.totalAmount AS totalAmount, " +
+            "o.userId AS userId, u.email AS userEmail, pp.productId AS productId, p.title AS productTitle, " +
+            "pp.quantity AS quantity, pp.priceAtPurchase AS priceAtPurchase " +
+            "FROM Orders o LEFT JOIN EcommerceUsers u ON u.id = o.userId " +
+            "LEFT JOIN PurchasedProducts pp ON pp.orderId = o.id " +
+            "LEFT JOIN Products p ON p.id = pp.productId " +
+            "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+            "ORDER BY o.id, pp.id")
+    Stream<OrderExportRow> streamOrderExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface OrderExportRow {
+        Long getOrderId();
+        LocalDateTime getCreatedAt();
+        String getStatus();
+        BigDecimal getTotalAmount();
+        Long getUserId();
+        String getUserEmail();
+        Long getProductId();
+        String getProductTitle();
+        Integer getQuantity();
+        BigDecimal getPriceAtPurchase();
+    }
 }
@@ -3,18 +3,53 @@ package com.ecommerce.ecommerce.repositories;
 import com.ecommerce.ecommerce.schemas.Products;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Products, Long> {
+public interface ProductRepository extends JpaRepository<Products, Long>, ProductRepositoryCustom {
+
+    /**
+     * Full-text search over title and description: every word of the query must match as a prefix of a word
+     * in the product, best matches (title hits weigh more) first. Backed by the GIN index on
+     * {@code search_vector}, see {@code ProductSearchMigration}. The pageable must be unsorted; relevance is
+     * the order.
+     */
+    default Page<Products> searchProducts(String searchQuery, Pageable pageable) {
+        String tsQuery = Arrays.stream(searchQuery.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        if (tsQuery.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return searchByTsQuery(tsQuery, pageable);
+    }
+
+    @Query(value = "SELECT p.* FROM products p WHERE p.search_vector @@ to_tsquery('simple', :tsQuery) " +
+            "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', :tsQuery)) DESC, p.created_at DESC, p.id DESC",
+            countQuery = "SELECT COUNT(*) FROM products p WHERE p.search_vector @@ to_tsquery('simple', :tsQuery)",
+            nativeQuery = true)
+    Page<Products> searchByTsQuery(@Param("tsQuery") String tsQuery, Pageable pageable);
 
-    @Query("SELECT p FROM Products p WHERE " +
-            "LOWER(p.title) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchQuery, '%'))")
-    Page<Products> searchProducts(@Param("searchQuery") String searchQuery, Pageable pageable);
+    // keyset pagination: Slice fetches limit + 1 rows instead of running a count query
+    Slice<Products> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT p FROM Products p WHERE (p.createdAt, p.id) < (:createdAt, :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Products> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
 
     @Query("SELECT p FROM Products p WHERE p.quantity < :threshold")
     java.util.List<Products> findLowStockProducts(@Param("threshold") int threshold);
@@ -27,4 +62,42 @@ public interface ProductRepository extends JpaRepository<Products, Long> {
 
     @Query("SELECT COUNT(p) FROM Products p WHERE p.categoryId = :categoryId")
     long countByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT p.categoryId AS categoryId, COUNT(p) AS productCount FROM Products p " +
+            "WHERE p.categoryId IS NOT NULL GROUP BY p.categoryId")
+    List<CategoryProductCount> countProductsByCategory();
+
+    @Query("SELECT p.quantity FROM Products p WHERE p.id = :productId")
+    Optional<Integer> findQuantityById(@Param("productId") Long productId);
+
+    @Query(value = "SELECT concat_ws(':', extract(epoch FROM p.updated_at), extract(epoch FROM c.updated_at)) " +
+            "FROM products p LEFT JOIN categories c ON c.id = p.category_id WHERE p.id = :productId",
+            nativeQuery = true)
+    Optional<String> findProductVersion(@Param("productId") Long productId);
+
+    @Query("SELECT p.id AS id, p.title AS title, p.description AS description FROM Products p ORDER BY p.id")
+    List<SuggestSource> findAllSuggestSources();
+
+    @Query("SELECT COUNT(p) AS totalProducts, " +
+            "COUNT(CASE WHEN p.quantity < :threshold THEN 1 END) AS lowStockCount, " +
+            "COUNT(CASE WHEN p.quantity = 0 THEN 1 END) AS outOfStockCount " +
+            "FROM Products p")
+    StockStats getStockStats(@Param("threshold") int threshold);
+
+    interface CategoryProductCount {
+        Long getCategoryId();
+        long getProductCount();
+    }
+
+    interface SuggestSource {
+        Long getId();
+        String getTitle();
+        String getDescription();
+    }
+
+    interface StockStats {
+        long getTotalProducts();
+        long getLowStockCount();
+        long getOutOfStockCount();
+    }
 }
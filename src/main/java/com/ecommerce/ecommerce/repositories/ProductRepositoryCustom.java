@@ -0,0 +1,25 @@
+package com.ecommerce.ecommerce.repositories;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Takes {@code quantity} units of stock in a single conditional UPDATE, so concurrent buyers can never
+     * drive stock below zero. Returns 1 when the stock was taken, 0 when there was not enough.
+     */
+    int decrementStock(Long productId, int quantity);
+
+    /**
+     * Takes up to {@code quantity} units, stopping at zero.
+     */
+    int drainStock(Long productId, int quantity);
+
+    /**
+     * Takes stock for several products in one JDBC batch of conditional UPDATEs, applied in ascending
+     * product id order so concurrent carts lock rows in the same order and cannot deadlock.
+     * Returns the ids of the products that did not have enough stock.
+     */
+    List<Long> decrementStockInBatch(Map<Long, Integer> quantitiesByProductId);
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.ecommerce.repositories;
+
+import com.ecommerce.ecommerce.schemas.Products;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stock writes go through plain JDBC: a JPQL bulk UPDATE would make Hibernate drop the whole products
+ * cache region on every purchase. Instead the touched rows get the same second-level cache soft lock
+ * Hibernate takes for its own entity updates: locked before the UPDATE and unlocked when the transaction
+ * completes. While locked, readers miss and loads are not cached; after the unlock, a load that began
+ * before it (and may have read the old row) is still refused, so the old stock can never be re-cached.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET quantity = quantity - ?, updated_at = LOCALTIMESTAMP WHERE id = ? AND quantity >= ?";
+    private static final String DRAIN_STOCK =
+            "UPDATE products SET quantity = GREATEST(quantity - ?, 0), updated_at = LOCALTIMESTAMP WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+
+    @Override
+    public int decrementStock(Long productId, int quantity) {
+        lockCachedRows(List.of(productId));
+        return jdbcTemplate.update(DECREMENT_STOCK, quantity, productId, quantity);
+    }
+
+    @Override
+    public int drainStock(Long productId, int quantity) {
+        lockCachedRows(List.of(productId));
+        return jdbcTemplate.update(DRAIN_STOCK, quantity, productId);
+    }
+
+    @Override
+    public List<Long> decrementStockInBatch(Map<Long, Integer> quantitiesByProductId) {
+        List<Long> productIds = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        new TreeMap<>(quantitiesByProductId).forEach((productId, quantity) -> {
+            productIds.add(productId);
+            args.add(new Object[]{quantity, productId, quantity});
+        });
+        if (args.isEmpty()) {
+            return List.of();
+        }
+
+        lockCachedRows(productIds);
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK, args);
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insufficient.add(productIds.get(i));
+            }
+        }
+        return insufficient;
+    }
+
+    /**
+     * Soft-locks the rows' cache entries until the current transaction completes. Outside a transaction
+     * the UPDATE commits on its own, so the entries are just evicted.
+     */
+    private void lockCachedRows(Collection<Long> productIds) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(Products.class);
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        if (cacheAccess == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productIds.forEach(productId -> entityManagerFactory.getCache().evict(Products.class, productId));
+            return;
+        }
+
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Map<Object, SoftLock> locks = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            Object key = cacheAccess.generateCacheKey(productId, persister, sessionFactory,
+                    session.getTenantIdentifier());
+            locks.put(key, cacheAccess.lockItem(session, key, null));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.forEach((key, lock) -> cacheAccess.unlockItem(session, key, lock));
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.repositories;
+
+import com.ecommerce.ecommerce.schemas.ProductSalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    @Query("SELECT r.productId AS productId, p.title AS productTitle, p.productUrl AS productUrl, p.price AS price, " +
+            "c.name AS categoryName, r.itemsSold AS totalSold, r.revenue AS totalRevenue " +
+            "FROM ProductSalesRollup r JOIN Products p ON p.id = r.productId " +
+            "LEFT JOIN Category c ON c.id = p.categoryId " +
+            "ORDER BY r.itemsSold DESC, r.productId")
+    List<PurchasedProductRepository.TopSellerRow> findTopSellers(Pageable pageable);
+}
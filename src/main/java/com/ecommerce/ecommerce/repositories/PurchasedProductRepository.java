@@ -1,11 +1,14 @@
 package com.ecommerce.ecommerce.repositories;
 
 import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PurchasedProductRepository extends JpaRepository<PurchasedProducts, Long> {
@@ -13,15 +16,31 @@ public interface PurchasedProductRepository extends JpaRepository<PurchasedProdu
 
     List<PurchasedProducts> findByOrderId(Long orderId);
 
-    @Query("SELECT pp.productId, SUM(pp.quantity) as totalQty FROM PurchasedProducts pp GROUP BY pp.productId ORDER BY totalQty DESC")
-    List<Object[]> findTopSellingProducts();
+    List<PurchasedProducts> findByOrderIdIn(Collection<Long> orderIds);
 
-    @Query("SELECT pp.productId, SUM(pp.quantity) as totalQty FROM PurchasedProducts pp WHERE pp.createdAt >= :startDate GROUP BY pp.productId ORDER BY totalQty DESC")
-    List<Object[]> findTopSellingProductsSince(@Param("startDate") LocalDateTime startDate);
+    @Query("SELECT pp.productId AS productId, p.title AS productTitle, p.productUrl AS productUrl, p.price AS price, " +
+            "c.name AS categoryName, SUM(pp.quantity) AS totalSold, " +
+            "SUM(COALESCE(pp.priceAtPurchase, p.price) * pp.quantity) AS totalRevenue " +
+            "FROM PurchasedProducts pp JOIN Products p ON p.id = pp.productId " +
+            "LEFT JOIN Category c ON c.id = p.categoryId " +
+            "WHERE pp.createdAt >= :startDate " +
+            "GROUP BY pp.productId, p.title, p.productUrl, p.price, c.name " +
+            "ORDER BY totalSold DESC, pp.productId")
+    List<TopSellerRow> findTopSellingProductsSince(@Param("startDate") LocalDateTime startDate, Pageable pageable);
 
     @Query("SELECT COALESCE(SUM(pp.quantity), 0) FROM PurchasedProducts pp")
     long getTotalItemsSold();
 
     @Query("SELECT COALESCE(SUM(pp.quantity), 0) FROM PurchasedProducts pp WHERE pp.createdAt >= :startDate")
     long getItemsSoldSince(@Param("startDate") LocalDateTime startDate);
+
+    interface TopSellerRow {
+        Long getProductId();
+        String getProductTitle();
+        String getProductUrl();
+        BigDecimal getPrice();
+        String getCategoryName();
+        long getTotalSold();
+        BigDecimal getTotalRevenue();
+    }
 }
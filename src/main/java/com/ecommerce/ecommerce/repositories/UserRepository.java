@@ -1,17 +1,56 @@
 package com.ecommerce.ecommerce.repositories;
 
 import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<EcommerceUsers, Long> {
     Optional<EcommerceUsers> findByEmail(String email);
     boolean existsByEmail(String email);
 
+    // compare-and-set, so a rehash never overwrites a password changed in the meantime
+    @Transactional
+    @Modifying
+    @Query("UPDATE EcommerceUsers u SET u.password = :password WHERE u.id = :id AND u.password = :previous")
+    int updatePassword(@Param("id") Long id, @Param("previous") String previous, @Param("password") String password);
+
+    @Query("SELECT u.email FROM EcommerceUsers u")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<String> streamAllEmails();
+
+    @Query("SELECT u.email FROM EcommerceUsers u WHERE u.createdAt >= :since")
+    List<String> findEmailsCreatedSince(@Param("since") LocalDateTime since);
+
     @Query("SELECT COUNT(u) FROM EcommerceUsers u WHERE u.createdAt >= :startDate")
     long countNewUsersSince(@Param("startDate") LocalDateTime startDate);
+
+    @Query("SELECT COUNT(u) AS totalUsers, " +
+            "COUNT(CASE WHEN u.createdAt >= :today THEN 1 END) AS newUsersToday, " +
+            "COUNT(CASE WHEN u.createdAt >= :week THEN 1 END) AS newUsersWeek, " +
+            "COUNT(CASE WHEN u.createdAt >= :month THEN 1 END) AS newUsersMonth " +
+            "FROM EcommerceUsers u")
+    UserWindowStats getUserWindowStats(@Param("today") LocalDateTime today,
+                                       @Param("week") LocalDateTime week,
+                                       @Param("month") LocalDateTime month);
+
+    interface UserWindowStats {
+        long getTotalUsers();
+        long getNewUsersToday();
+        long getNewUsersWeek();
+        long getNewUsersMonth();
+    }
 }
@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.schemas;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "category_sales_rollup")
+public class CategorySalesRollup {
+
+    // products without a category are rolled up under 0
+    public static final long UNCATEGORIZED = 0L;
+
+    @Id
+    private Long categoryId;
+
+    private long itemsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    private long orderCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
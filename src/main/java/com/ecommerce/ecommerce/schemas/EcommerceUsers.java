@@ -17,12 +17,14 @@ import java.time.LocalDateTime;
         @UniqueConstraint(columnNames = "email")
 },
 indexes = {
-        @Index(name = "idx_email", columnList = "email")
+        @Index(name = "idx_email", columnList = "email"),
+        @Index(name = "idx_users_created_at", columnList = "createdAt")
 })
 public class EcommerceUsers {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ecommerce_users_seq")
+    @SequenceGenerator(name = "ecommerce_users_seq", sequenceName = "ecommerce_users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 120, unique = true)
@@ -0,0 +1,31 @@
+package com.ecommerce.ecommerce.schemas;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "hourly_sales_rollup")
+public class HourlySalesRollup {
+
+    // start of the hour this row covers
+    @Id
+    private LocalDateTime bucketStart;
+
+    private long itemsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    private long orderCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
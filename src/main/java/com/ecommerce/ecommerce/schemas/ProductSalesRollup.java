@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.schemas;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_sales_rollup",
+        indexes = {
+                @Index(name = "idx_product_rollup_items_sold", columnList = "itemsSold")
+        })
+public class ProductSalesRollup {
+
+    @Id
+    private Long productId;
+
+    private long itemsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    private long orderCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
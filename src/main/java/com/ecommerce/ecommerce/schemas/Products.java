@@ -1,29 +1,38 @@
 package com.ecommerce.ecommerce.schemas;
 
 
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PRODUCTS_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-
+// only write changed columns, so editing a product never overwrites a concurrent stock decrement
+@DynamicUpdate
 @Table(name = "products",
         indexes = {
-                @Index(name = "idx_title", columnList = "title")
+                @Index(name = "idx_title", columnList = "title"),
+                @Index(name = "idx_products_created_at_id", columnList = "createdAt DESC, id DESC"),
+                @Index(name = "idx_products_updated_at", columnList = "updatedAt")
         })
 public class Products {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
 
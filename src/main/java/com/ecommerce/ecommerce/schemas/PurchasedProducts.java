@@ -15,11 +15,16 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "purchased_products")
+@Table(name = "purchased_products",
+        indexes = {
+                @Index(name = "idx_purchased_products_order_id", columnList = "orderId")
+        })
 public class PurchasedProducts {
 
+    // sequence ids (allocated 50 at a time) let Hibernate batch the inserts of a bulk purchase
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchased_products_seq")
+    @SequenceGenerator(name = "purchased_products_seq", sequenceName = "purchased_products_seq", allocationSize = 50)
     private Long id;
 
     //this should reference a product
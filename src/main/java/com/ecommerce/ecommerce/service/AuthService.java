@@ -14,9 +14,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
@@ -27,21 +26,38 @@ public class AuthService {
     private Long expiration;
 
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserRepository userRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
 
     public LoginResponse loginUser(LoginRequest payload) {
         log.info("Login attempt for email: {}", payload.getEmail());
 
+        if (!registeredEmailFilter.mightBeRegistered(payload.getEmail())) {
+            log.warn("Failed login attempt for email: {}", payload.getEmail());
+            throw new InvalidCredentialsException("Invalid email or password");
+        }
         EcommerceUsers user = userRepository.findByEmail(payload.getEmail())
-                .orElseThrow(() -> new InvalidCredentialsException("Invalid email or password"));
+                .orElseThrow(() -> {
+                    registeredEmailFilter.recordFalsePositive();
+                    return new InvalidCredentialsException("Invalid email or password");
+                });
 
-        if (!passwordEncoder.matches(payload.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(payload.getPassword(), user.getPassword())) {
             log.warn("Failed login attempt for email: {}", payload.getEmail());
             throw new InvalidCredentialsException("Invalid email or password");
         }
+        if (passwordHashingService.upgradeEncoding(user.getPassword())) {
+            Long userId = user.getId();
+            String previous = user.getPassword();
+            passwordHashingService.rehashInBackground(payload.getPassword(), rehashed -> {
+                if (userRepository.updatePassword(userId, previous, rehashed) > 0) {
+                    log.info("Upgraded password hash for user {}", userId);
+                }
+            });
+        }
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), Boolean.TRUE.equals(user.getIsAdmin()));
         log.info("User logged in successfully: {}", user.getEmail());
 
         return LoginResponse.builder()
@@ -54,7 +70,8 @@ public class AuthService {
                 .build();
     }
 
-    @Transactional
+    // not transactional: no connection is held while the password is hashed; the unique email constraint
+    // still rejects a concurrent duplicate on save
     public RegisterResponse registerUser(RegisterRequest payload) {
         log.info("Registration attempt for email: {}", payload.getEmail());
 
@@ -62,19 +79,27 @@ public class AuthService {
             throw new PasswordMismatchException("Password and confirmation do not match");
         }
 
-        if (userRepository.existsByEmail(payload.getEmail())) {
+        if (registeredEmailFilter.mightBeRegistered(payload.getEmail())
+                && userRepository.existsByEmail(payload.getEmail())) {
             throw new EmailAlreadyExistsException("An account with this email already exists");
         }
 
         EcommerceUsers newUser = new EcommerceUsers();
         BeanUtils.copyProperties(payload, newUser, "password", "confirmPassword");
-        newUser.setPassword(passwordEncoder.encode(payload.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(payload.getPassword()));
         newUser.setIsAdmin(false);
 
-        EcommerceUsers savedUser = userRepository.save(newUser);
+        registeredEmailFilter.add(newUser.getEmail());
+        EcommerceUsers savedUser;
+        try {
+            savedUser = userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            // registered concurrently, or on another instance since the email filter last refreshed
+            throw new EmailAlreadyExistsException("An account with this email already exists");
+        }
         log.info("User registered successfully: {}", savedUser.getEmail());
 
-        String token = jwtUtil.generateToken(savedUser.getEmail());
+        String token = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getId(), false);
 
         return RegisterResponse.builder()
                 .userId(savedUser.getId())
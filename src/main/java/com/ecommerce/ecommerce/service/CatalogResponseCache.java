@@ -0,0 +1,170 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET and rendered-body cache for the catalog read endpoints.
+ * <p>
+ * Callers pass the resource, its request parameters and a cheap version of the data behind them.
+ * The strong ETag is a hash of both, so a matching {@code If-None-Match} is answered with 304 before the
+ * body is built, and a changed version simply misses. Rendered JSON is kept per key and version; admin
+ * writes {@link #invalidate} their resource to free the stale entries early.
+ * <p>
+ * The list version is an in-memory counter, so checking it costs nothing: admin writes bump it through
+ * {@link #invalidate} and stock changes through {@link #recordStockChange}, both once their transaction
+ * commits. Another instance's writes are not seen, and a single product's version comes from
+ * {@code updated_at}, which concurrent transactions can commit out of order; so every version also rolls
+ * over every {@code catalog.response-cache.max-staleness}, which bounds how long a missed change can be
+ * served.
+ */
+@Component
+public class CatalogResponseCache {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final ProductRepository productRepository;
+    private final JsonMapper jsonMapper;
+    private final long maxStalenessMillis;
+    private final Cache<String, byte[]> bodies;
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    public CatalogResponseCache(ProductRepository productRepository,
+                                JsonMapper jsonMapper,
+                                @Value("${catalog.response-cache.max-staleness:60s}") Duration maxStaleness,
+                                @Value("${catalog.response-cache.max-bytes:33554432}") long maxBytes) {
+        this.productRepository = productRepository;
+        this.jsonMapper = jsonMapper;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] body) -> key.length() + body.length)
+                .expireAfterWrite(maxStaleness)
+                .build();
+    }
+
+    /**
+     * Version of every product and category, for list endpoints; no query.
+     */
+    public String catalogVersion() {
+        return Long.toString(catalogVersion.get());
+    }
+
+    /**
+     * Version of one product and its category: one indexed lookup. Empty string for an unknown id.
+     */
+    public String productVersion(Long productId) {
+        return productRepository.findProductVersion(productId).orElse("");
+    }
+
+    /**
+     * Answers a catalog GET: 304 when the client already has this version, otherwise the cached or freshly
+     * rendered body. Error responses are never cached and are returned with {@code errorStatus}.
+     */
+    public ResponseEntity<byte[]> respond(String resource, String parameters, String version, String ifNoneMatch,
+                                          Supplier<ProductResponse<?>> render, HttpStatus errorStatus) {
+        String etag = etag(resource, parameters, version + ':' + System.currentTimeMillis() / maxStalenessMillis);
+        // an empty version means there is nothing at this URL, which "*" must not match
+        if (matches(ifNoneMatch, etag, !version.isEmpty())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+
+        byte[] body = bodies.getIfPresent(etag);
+        if (body == null) {
+            ProductResponse<?> response = render.get();
+            body = jsonMapper.writeValueAsBytes(response);
+            if ("error".equals(response.getStatus())) {
+                return ResponseEntity.status(errorStatus).contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            bodies.put(etag, body);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Changes the list version and drops the resource's cached bodies, once the current transaction commits.
+     */
+    public void invalidate(String resource) {
+        afterCommit(() -> {
+            catalogVersion.incrementAndGet();
+            bodies.asMap().keySet().removeIf(etag -> etag.startsWith('"' + resource + '-'));
+        });
+    }
+
+    /**
+     * Changes the list version once the current transaction commits; for the purchase path, where sweeping
+     * the cached bodies on every order is not worth it (they can no longer be hit and expire on their own).
+     */
+    public void recordStockChange() {
+        afterCommit(catalogVersion::incrementAndGet);
+    }
+
+    /**
+     * {@code "<resource>-<hash of parameters and version>"}; the resource prefix is what {@link #invalidate}
+     * matches, and the ETag doubles as the body cache key.
+     */
+    private static String etag(String resource, String parameters, String version) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((parameters + '\n' + version).getBytes(StandardCharsets.UTF_8));
+            return '"' + resource + '-' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag, boolean exists) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || (tag.equals("*") && exists)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Category id to name lookup for the product and dashboard mappers, so a page of products costs no
+ * per-row category query.
+ * <p>
+ * Holds every category as an immutable snapshot of sorted {@code long} ids with a parallel name array and
+ * answers with a binary search. {@link CategoryService} calls {@link #invalidate()} on create, update and
+ * delete, which drops the snapshot after commit so the next lookup reloads it. An unknown id (e.g. a
+ * category created on another instance) triggers at most one reload per second. Hits and misses are
+ * counted in {@code category.name.cache}.
+ */
+@Slf4j
+@Component
+public class CategoryNameCache {
+
+    private static final long MIN_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final CategoryRepository categoryRepository;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Snapshot snapshot;
+    // bumped on every invalidation, so a reload that raced with one never publishes stale names
+    private final AtomicLong generation = new AtomicLong();
+
+    public CategoryNameCache(CategoryRepository categoryRepository, MeterRegistry meterRegistry) {
+        this.categoryRepository = categoryRepository;
+        this.hits = Counter.builder("category.name.cache").tag("result", "hit")
+                .description("Category name lookups").register(meterRegistry);
+        this.misses = Counter.builder("category.name.cache").tag("result", "miss")
+                .description("Category name lookups").register(meterRegistry);
+    }
+
+    /**
+     * Returns the category's name, or null when the id is null or no such category exists.
+     */
+    public String getName(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current != null) {
+            String name = current.find(categoryId);
+            if (name != null) {
+                hits.increment();
+                return name;
+            }
+        }
+
+        misses.increment();
+        if (current == null || System.nanoTime() - current.loadedAt() >= MIN_RELOAD_INTERVAL_NANOS) {
+            current = reload();
+        }
+        return current.find(categoryId);
+    }
+
+    /**
+     * Drops the snapshot so the next lookup reloads it; inside a transaction this happens after commit.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        } else {
+            drop();
+        }
+    }
+
+    private void drop() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        Snapshot loaded = reload();
+        log.info("Category name cache loaded with {} categories", loaded.ids().length);
+    }
+
+    private Snapshot reload() {
+        long startGeneration = generation.get();
+        List<CategoryRepository.CategoryName> rows = categoryRepository.findAllNames();
+        long[] ids = new long[rows.size()];
+        String[] names = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = rows.get(i).getId();
+            names[i] = rows.get(i).getName();
+        }
+        Snapshot loaded = new Snapshot(ids, names, System.nanoTime());
+        if (generation.get() == startGeneration) {
+            snapshot = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Ids are sorted ascending (the query orders by id).
+     */
+    private record Snapshot(long[] ids, String[] names, long loadedAt) {
+
+        String find(long categoryId) {
+            int index = Arrays.binarySearch(ids, categoryId);
+            return index >= 0 ? names[index] : null;
+        }
+    }
+}
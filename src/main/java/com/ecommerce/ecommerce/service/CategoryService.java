@@ -11,7 +11,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -21,11 +23,19 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryNameCache categoryNameCache;
+    private final CatalogResponseCache catalogResponseCache;
 
     public ProductResponse<List<CategoryResponse>> getAllCategories() {
         try {
+            // one grouped count for all categories instead of a count per category
+            Map<Long, Long> productCounts = new HashMap<>();
+            for (ProductRepository.CategoryProductCount row : productRepository.countProductsByCategory()) {
+                productCounts.put(row.getCategoryId(), row.getProductCount());
+            }
+
             List<CategoryResponse> categories = categoryRepository.findAll().stream()
-                    .map(this::mapToResponse)
+                    .map(category -> mapToResponse(category, productCounts.getOrDefault(category.getId(), 0L)))
                     .toList();
 
             return ProductResponse.<List<CategoryResponse>>builder()
@@ -82,6 +92,8 @@ public class CategoryService {
             category.setDescription(request.getDescription());
 
             Category saved = categoryRepository.save(category);
+            categoryNameCache.invalidate();
+            invalidateCatalogResponses();
             log.info("Category created successfully: {}", saved.getName());
 
             return ProductResponse.<CategoryResponse>builder()
@@ -127,6 +139,8 @@ public class CategoryService {
             }
 
             Category updated = categoryRepository.save(category);
+            categoryNameCache.invalidate();
+            invalidateCatalogResponses();
             log.info("Category updated successfully: {}", updated.getName());
 
             return ProductResponse.<CategoryResponse>builder()
@@ -164,6 +178,8 @@ public class CategoryService {
             }
 
             categoryRepository.delete(categoryOpt.get());
+            categoryNameCache.invalidate();
+            invalidateCatalogResponses();
             log.info("Category deleted successfully: {}", id);
 
             return ProductResponse.<Void>builder()
@@ -179,12 +195,22 @@ public class CategoryService {
         }
     }
 
+    // product responses carry category names
+    private void invalidateCatalogResponses() {
+        catalogResponseCache.invalidate(CatalogResponseCache.CATEGORIES);
+        catalogResponseCache.invalidate(CatalogResponseCache.PRODUCTS);
+    }
+
     private CategoryResponse mapToResponse(Category category) {
+        return mapToResponse(category, productRepository.countByCategoryId(category.getId()));
+    }
+
+    private CategoryResponse mapToResponse(Category category, long productCount) {
         return CategoryResponse.builder()
                 .id(category.getId())
                 .name(category.getName())
                 .description(category.getDescription())
-                .productCount(productRepository.countByCategoryId(category.getId()))
+                .productCount(productCount)
                 .createdAt(category.getCreatedAt())
                 .build();
     }
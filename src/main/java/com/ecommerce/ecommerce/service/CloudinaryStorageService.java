@@ -2,36 +2,96 @@ package com.ecommerce.ecommerce.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Stores product images in Cloudinary.
+ * <p>
+ * Uploads are never read into memory. The multipart upload, which the servlet container has already written to
+ * disk, is moved to a temporary file and sent from there in one streamed request. Files larger than
+ * {@code cloudinary.upload.chunked-threshold} use Cloudinary's chunked upload instead, which buffers each
+ * {@code cloudinary.upload.chunk-size} chunk in memory, so it is kept for files too large for one request.
+ * At most {@code cloudinary.upload.max-concurrent} uploads, remote imports included, run at once; others
+ * wait up to {@code cloudinary.upload.max-wait} and then fail.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "storage.type", havingValue = "cloudinary")
 public class CloudinaryStorageService implements ImageStorageService {
 
     private final Cloudinary cloudinary;
+    private final String folder;
+    private final long chunkedThreshold;
+    private final long chunkSize;
+    private final Semaphore uploadPermits;
+    private final long maxWaitNanos;
 
-    @Value("${cloudinary.folder:ecommerce/products}")
-    private String folder;
+    public CloudinaryStorageService(Cloudinary cloudinary,
+                                    @Value("${cloudinary.folder:ecommerce/products}") String folder,
+                                    @Value("${cloudinary.upload.chunked-threshold:20MB}") DataSize chunkedThreshold,
+                                    @Value("${cloudinary.upload.chunk-size:6MB}") DataSize chunkSize,
+                                    @Value("${cloudinary.upload.max-concurrent:4}") int maxConcurrent,
+                                    @Value("${cloudinary.upload.max-wait:30s}") Duration maxWait) {
+        this.cloudinary = cloudinary;
+        this.folder = folder;
+        this.chunkedThreshold = chunkedThreshold.toBytes();
+        this.chunkSize = chunkSize.toBytes();
+        this.uploadPermits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
 
     @Override
     public String storeImage(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Cannot store empty file");
+        }
+        acquireUploadPermit();
+        Path spooled = null;
         try {
-            if (file.isEmpty()) {
-                throw new RuntimeException("Cannot store empty file");
-            }
+            spooled = Files.createTempFile("cloudinary-upload-", ".tmp");
+            // for an upload already on disk this moves the container's temp file instead of copying it
+            file.transferTo(spooled.toFile());
+
+            Map<String, Object> options = ObjectUtils.asMap(
+                    "folder", folder,
+                    "resource_type", "image"
+            );
+            Map<String, Object> uploadResult = file.getSize() > chunkedThreshold
+                    ? cloudinary.uploader().uploadLarge(spooled.toFile(), options, (int) chunkSize)
+                    : cloudinary.uploader().upload(spooled.toFile(), options);
 
+            String secureUrl = (String) uploadResult.get("secure_url");
+            log.info("Image uploaded to Cloudinary successfully: {}", secureUrl);
+            return secureUrl;
+        } catch (IOException e) {
+            log.error("Failed to upload image to Cloudinary", e);
+            throw new RuntimeException("Failed to upload image: " + e.getMessage());
+        } finally {
+            uploadPermits.release();
+            deleteQuietly(spooled);
+        }
+    }
+
+    @Override
+    public String storeRemoteImage(String sourceUrl) {
+        acquireUploadPermit();
+        try {
+            // Cloudinary fetches the URL itself, so the image never passes through this server
             Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
+                    sourceUrl,
                     ObjectUtils.asMap(
                             "folder", folder,
                             "resource_type", "image"
@@ -39,11 +99,13 @@ public class CloudinaryStorageService implements ImageStorageService {
             );
 
             String secureUrl = (String) uploadResult.get("secure_url");
-            log.info("Image uploaded to Cloudinary successfully: {}", secureUrl);
+            log.debug("Remote image {} uploaded to Cloudinary: {}", sourceUrl, secureUrl);
             return secureUrl;
         } catch (IOException e) {
-            log.error("Failed to upload image to Cloudinary", e);
+            log.error("Failed to upload remote image {} to Cloudinary", sourceUrl, e);
             throw new RuntimeException("Failed to upload image: " + e.getMessage());
+        } finally {
+            uploadPermits.release();
         }
     }
 
@@ -64,6 +126,30 @@ public class CloudinaryStorageService implements ImageStorageService {
         }
     }
 
+    private void acquireUploadPermit() {
+        boolean acquired;
+        try {
+            acquired = uploadPermits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new RuntimeException("Too many image uploads in progress, try again later");
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete upload file {}", path, e);
+        }
+    }
+
     private String extractPublicId(String imageUrl) {
         if (imageUrl == null || !imageUrl.contains("cloudinary.com")) {
             return null;
@@ -3,19 +3,35 @@ package com.ecommerce.ecommerce.service;
 import com.ecommerce.ecommerce.models.*;
 import com.ecommerce.ecommerce.repositories.*;
 import com.ecommerce.ecommerce.schemas.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,27 +39,102 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DashboardService {
 
-    private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final PurchasedProductRepository purchasedProductRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final RecentOrderLoader recentOrderLoader;
+    private final CategoryNameCache categoryNameCache;
+    private final ProductSalesRollupRepository productSalesRollupRepository;
+    private final HourlySalesRollupRepository hourlySalesRollupRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${dashboard.recent-orders.default-limit:10}")
+    private int recentOrdersDefaultLimit;
+
+    @Value("${dashboard.recent-orders.max-limit:100}")
+    private int recentOrdersMaxLimit;
+
+    @Value("${dashboard.sections.pool-size:5}")
+    private int sectionPoolSize;
+
+    @Value("${dashboard.sections.queue-capacity:20}")
+    private int sectionQueueCapacity;
+
+    @Value("${dashboard.sections.timeout:5s}")
+    private Duration sectionTimeout;
+
+    private ExecutorService sectionExecutor;
+    private TransactionTemplate readOnlyTransaction;
 
     private static final int LOW_STOCK_THRESHOLD = 10;
 
+    @PostConstruct
+    void startSectionExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // bounded both ways; when the queue is full the caller computes the section itself
+        sectionExecutor = new ThreadPoolExecutor(sectionPoolSize, sectionPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sectionQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-section-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // lets a section that overran its wait also have its queries cancelled, rather than hold a connection
+        readOnlyTransaction.setTimeout((int) Math.max(1, sectionTimeout.toSeconds()));
+    }
+
+    @PreDestroy
+    void stopSectionExecutor() {
+        sectionExecutor.shutdownNow();
+    }
+
+    /**
+     * Computes the five dashboard sections concurrently, each in its own read-only transaction.
+     * <p>
+     * A section that fails or is not done within {@code dashboard.sections.timeout} is left null and named
+     * in {@code degradedSections}; the rest are still returned. Per-section wall time is in
+     * {@code sectionTimings}.
+     */
     public ProductResponse<DashboardResponse> getDashboard() {
         try {
+            LocalDateTime generatedAt = LocalDateTime.now();
+            Map<String, Long> timings = new ConcurrentHashMap<>();
+            long deadline = System.nanoTime() + sectionTimeout.toNanos();
+
+            CompletableFuture<DashboardResponse.OverviewStats> overview =
+                    runSection("overview", this::buildOverviewStats, timings);
+            CompletableFuture<List<TopProductResponse>> topProducts =
+                    runSection("topProducts", () -> getTopProducts(10, null), timings);
+            CompletableFuture<List<CategoryStatsResponse>> categoryStats =
+                    runSection("categoryStats", this::getCategoryStats, timings);
+            CompletableFuture<List<LowStockProductResponse>> lowStockProducts =
+                    runSection("lowStockProducts", this::getLowStockProducts, timings);
+            CompletableFuture<List<RecentOrderResponse>> recentOrders =
+                    runSection("recentOrders", () -> getRecentOrders(recentOrdersDefaultLimit), timings);
+
+            List<String> degraded = new ArrayList<>();
             DashboardResponse dashboard = DashboardResponse.builder()
-                    .overview(buildOverviewStats())
-                    .topProducts(getTopProducts(10))
-                    .categoryStats(getCategoryStats())
-                    .lowStockProducts(getLowStockProducts())
-                    .recentOrders(getRecentOrders(10))
+                    .generatedAt(generatedAt)
+                    .overview(awaitSection("overview", overview, deadline, timings, degraded))
+                    .topProducts(awaitSection("topProducts", topProducts, deadline, timings, degraded))
+                    .categoryStats(awaitSection("categoryStats", categoryStats, deadline, timings, degraded))
+                    .lowStockProducts(awaitSection("lowStockProducts", lowStockProducts, deadline, timings, degraded))
+                    .recentOrders(awaitSection("recentOrders", recentOrders, deadline, timings, degraded))
+                    .degraded(!degraded.isEmpty())
+                    .degradedSections(degraded)
+                    .sectionTimings(orderedTimings(timings))
                     .build();
 
             return ProductResponse.<DashboardResponse>builder()
                     .status("success")
-                    .message("Dashboard data fetched successfully")
+                    .message(degraded.isEmpty()
+                            ? "Dashboard data fetched successfully"
+                            : "Dashboard data fetched partially; unavailable: " + String.join(", ", degraded))
                     .data(dashboard)
                     .build();
         } catch (Exception e) {
@@ -55,6 +146,44 @@ public class DashboardService {
         }
     }
 
+    private <T> CompletableFuture<T> runSection(String name, Supplier<T> loader, Map<String, Long> timings) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return readOnlyTransaction.execute(status -> loader.get());
+            } finally {
+                timings.putIfAbsent(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }, sectionExecutor);
+    }
+
+    private <T> T awaitSection(String name, CompletableFuture<T> section, long deadline,
+                               Map<String, Long> timings, List<String> degraded) {
+        try {
+            return section.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section {} timed out after {}", name, sectionTimeout);
+            timings.putIfAbsent(name, sectionTimeout.toMillis());
+        } catch (ExecutionException e) {
+            log.error("Dashboard section {} failed", name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        degraded.add(name);
+        return null;
+    }
+
+    private static Map<String, Long> orderedTimings(Map<String, Long> timings) {
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (String name : List.of("overview", "topProducts", "categoryStats", "lowStockProducts", "recentOrders")) {
+            Long millis = timings.get(name);
+            if (millis != null) {
+                ordered.put(name, millis);
+            }
+        }
+        return ordered;
+    }
+
     public ProductResponse<DashboardResponse.OverviewStats> getOverviewStats() {
         try {
             DashboardResponse.OverviewStats stats = buildOverviewStats();
@@ -78,32 +207,36 @@ public class DashboardService {
         LocalDateTime startOfWeek = now.minusDays(7);
         LocalDateTime startOfMonth = now.minusDays(30);
 
-        List<Products> lowStock = productRepository.findLowStockProducts(LOW_STOCK_THRESHOLD);
-        List<Products> outOfStock = productRepository.findOutOfStockProducts();
+        // One aggregate query per source: every window is a conditional aggregate over the same scan.
+        // Sales come from the hourly rollup, so windows other than "today" are aligned to the hour.
+        HourlySalesRollupRepository.SalesWindowStats sales = hourlySalesRollupRepository.getSalesWindowStats(
+                startOfToday, startOfWeek.truncatedTo(ChronoUnit.HOURS), startOfMonth.truncatedTo(ChronoUnit.HOURS));
+        UserRepository.UserWindowStats users = userRepository.getUserWindowStats(startOfToday, startOfWeek, startOfMonth);
+        ProductRepository.StockStats stock = productRepository.getStockStats(LOW_STOCK_THRESHOLD);
 
         return DashboardResponse.OverviewStats.builder()
-                .totalRevenue(orderRepository.getTotalRevenue())
-                .todayRevenue(orderRepository.getRevenueSince(startOfToday))
-                .weekRevenue(orderRepository.getRevenueSince(startOfWeek))
-                .monthRevenue(orderRepository.getRevenueSince(startOfMonth))
-                .totalOrders(orderRepository.count())
-                .todayOrders(orderRepository.countOrdersSince(startOfToday))
-                .weekOrders(orderRepository.countOrdersSince(startOfWeek))
-                .monthOrders(orderRepository.countOrdersSince(startOfMonth))
-                .totalUsers(userRepository.count())
-                .newUsersToday(userRepository.countNewUsersSince(startOfToday))
-                .newUsersWeek(userRepository.countNewUsersSince(startOfWeek))
-                .newUsersMonth(userRepository.countNewUsersSince(startOfMonth))
-                .totalProducts(productRepository.count())
-                .lowStockCount(lowStock.size())
-                .outOfStockCount(outOfStock.size())
-                .totalItemsSold(purchasedProductRepository.getTotalItemsSold())
+                .totalRevenue(sales.getTotalRevenue())
+                .todayRevenue(sales.getTodayRevenue())
+                .weekRevenue(sales.getWeekRevenue())
+                .monthRevenue(sales.getMonthRevenue())
+                .totalOrders(sales.getTotalOrders())
+                .todayOrders(sales.getTodayOrders())
+                .weekOrders(sales.getWeekOrders())
+                .monthOrders(sales.getMonthOrders())
+                .totalUsers(users.getTotalUsers())
+                .newUsersToday(users.getNewUsersToday())
+                .newUsersWeek(users.getNewUsersWeek())
+                .newUsersMonth(users.getNewUsersMonth())
+                .totalProducts(stock.getTotalProducts())
+                .lowStockCount(stock.getLowStockCount())
+                .outOfStockCount(stock.getOutOfStockCount())
+                .totalItemsSold(sales.getTotalItemsSold())
                 .build();
     }
 
-    public ProductResponse<List<TopProductResponse>> getTopSellingProducts(int limit) {
+    public ProductResponse<List<TopProductResponse>> getTopSellingProducts(int limit, Integer days) {
         try {
-            List<TopProductResponse> topProducts = getTopProducts(limit);
+            List<TopProductResponse> topProducts = getTopProducts(limit, days);
             return ProductResponse.<List<TopProductResponse>>builder()
                     .status("success")
                     .message("Top products fetched successfully")
@@ -118,36 +251,23 @@ public class DashboardService {
         }
     }
 
-    private List<TopProductResponse> getTopProducts(int limit) {
-        List<Object[]> topSelling = purchasedProductRepository.findTopSellingProducts();
-        List<TopProductResponse> result = new ArrayList<>();
-
-        int count = 0;
-        for (Object[] row : topSelling) {
-            if (count >= limit) break;
-
-            Long productId = (Long) row[0];
-            Long totalSold = (Long) row[1];
-
-            Optional<Products> productOpt = productRepository.findById(productId);
-            if (productOpt.isPresent()) {
-                Products product = productOpt.get();
-                String categoryName = getCategoryName(product.getCategoryId());
-
-                result.add(TopProductResponse.builder()
-                        .productId(productId)
-                        .productTitle(product.getTitle())
-                        .productUrl(product.getProductUrl())
-                        .price(product.getPrice())
-                        .totalSold(totalSold)
-                        .totalRevenue(product.getPrice().multiply(BigDecimal.valueOf(totalSold)))
-                        .categoryName(categoryName)
-                        .build());
-                count++;
-            }
-        }
-
-        return result;
+    private List<TopProductResponse> getTopProducts(int limit, Integer days) {
+        Pageable topN = PageRequest.of(0, Math.max(limit, 1));
+        List<PurchasedProductRepository.TopSellerRow> rows = days != null && days > 0
+                ? purchasedProductRepository.findTopSellingProductsSince(LocalDateTime.now().minusDays(days), topN)
+                : productSalesRollupRepository.findTopSellers(topN);
+
+        return rows.stream()
+                .map(row -> TopProductResponse.builder()
+                        .productId(row.getProductId())
+                        .productTitle(row.getProductTitle())
+                        .productUrl(row.getProductUrl())
+                        .price(row.getPrice())
+                        .totalSold(row.getTotalSold())
+                        .totalRevenue(row.getTotalRevenue())
+                        .categoryName(row.getCategoryName() != null ? row.getCategoryName() : "Uncategorized")
+                        .build())
+                .collect(Collectors.toList());
     }
 
     public ProductResponse<List<CategoryStatsResponse>> getCategoryStatistics() {
@@ -168,42 +288,15 @@ public class DashboardService {
     }
 
     private List<CategoryStatsResponse> getCategoryStats() {
-        List<Category> categories = categoryRepository.findAll();
-        List<Object[]> topSelling = purchasedProductRepository.findTopSellingProducts();
-
-        Map<Long, Long> productSales = topSelling.stream()
-                .collect(Collectors.toMap(
-                        row -> (Long) row[0],
-                        row -> (Long) row[1],
-                        (a, b) -> a
-                ));
-
-        List<CategoryStatsResponse> result = new ArrayList<>();
-
-        for (Category category : categories) {
-            List<Products> categoryProducts = productRepository.findByCategoryId(category.getId());
-
-            long totalSold = 0;
-            BigDecimal totalRevenue = BigDecimal.ZERO;
-
-            for (Products product : categoryProducts) {
-                Long sold = productSales.getOrDefault(product.getId(), 0L);
-                totalSold += sold;
-                totalRevenue = totalRevenue.add(product.getPrice().multiply(BigDecimal.valueOf(sold)));
-            }
-
-            result.add(CategoryStatsResponse.builder()
-                    .categoryId(category.getId())
-                    .categoryName(category.getName())
-                    .productCount(categoryProducts.size())
-                    .totalSold(totalSold)
-                    .totalRevenue(totalRevenue)
-                    .build());
-        }
-
-        result.sort((a, b) -> Long.compare(b.getTotalSold(), a.getTotalSold()));
-
-        return result;
+        return categoryRepository.findCategoryStats().stream()
+                .map(row -> CategoryStatsResponse.builder()
+                        .categoryId(row.getCategoryId())
+                        .categoryName(row.getCategoryName())
+                        .productCount(row.getProductCount())
+                        .totalSold(row.getTotalSold())
+                        .totalRevenue(row.getTotalRevenue())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     public ProductResponse<List<LowStockProductResponse>> getLowStockAlerts() {
@@ -239,7 +332,7 @@ public class DashboardService {
                 .collect(Collectors.toList());
     }
 
-    public ProductResponse<List<RecentOrderResponse>> getRecentOrdersList(int limit) {
+    public ProductResponse<List<RecentOrderResponse>> getRecentOrdersList(Integer limit) {
         try {
             List<RecentOrderResponse> orders = getRecentOrders(limit);
             return ProductResponse.<List<RecentOrderResponse>>builder()
@@ -256,49 +349,13 @@ public class DashboardService {
         }
     }
 
-    private List<RecentOrderResponse> getRecentOrders(int limit) {
-        List<Orders> orders = orderRepository.findAll(
-                PageRequest.of(0, limit, Sort.by("createdAt").descending())
-        ).getContent();
-
-        List<RecentOrderResponse> result = new ArrayList<>();
-
-        for (Orders order : orders) {
-            Optional<EcommerceUsers> userOpt = userRepository.findById(order.getUserId());
-            List<PurchasedProducts> items = purchasedProductRepository.findByOrderId(order.getId());
-
-            List<RecentOrderResponse.OrderItemResponse> orderItems = items.stream()
-                    .map(item -> {
-                        Optional<Products> productOpt = productRepository.findById(item.getProductId());
-                        return RecentOrderResponse.OrderItemResponse.builder()
-                                .productId(item.getProductId())
-                                .productTitle(productOpt.map(Products::getTitle).orElse("Unknown"))
-                                .quantity(item.getQuantity())
-                                .priceAtPurchase(item.getPriceAtPurchase())
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-
-            result.add(RecentOrderResponse.builder()
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .userEmail(userOpt.map(EcommerceUsers::getEmail).orElse("Unknown"))
-                    .userName(userOpt.map(u -> u.getFirstName() + " " + u.getLastName()).orElse("Unknown"))
-                    .totalAmount(order.getTotalAmount())
-                    .status(order.getStatus())
-                    .itemCount(items.size())
-                    .createdAt(order.getCreatedAt())
-                    .items(orderItems)
-                    .build());
-        }
-
-        return result;
+    private List<RecentOrderResponse> getRecentOrders(Integer limit) {
+        int effectiveLimit = limit == null || limit <= 0 ? recentOrdersDefaultLimit : limit;
+        return recentOrderLoader.load(Math.min(effectiveLimit, recentOrdersMaxLimit));
     }
 
     private String getCategoryName(Long categoryId) {
-        if (categoryId == null) return "Uncategorized";
-        return categoryRepository.findById(categoryId)
-                .map(Category::getName)
-                .orElse("Uncategorized");
+        String name = categoryNameCache.getName(categoryId);
+        return name != null ? name : "Uncategorized";
     }
 }
@@ -0,0 +1,193 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.DashboardResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the admin dashboard from a precomputed snapshot instead of recomputing it per request.
+ * <p>
+ * The snapshot is recomputed on a schedule ({@code dashboard.snapshot.refresh-interval}) and after every
+ * {@code dashboard.snapshot.refresh-after-purchases} purchases. Readers always get the last good snapshot
+ * at once; one older than {@code dashboard.snapshot.max-age} is still served while a refresh runs in the
+ * background. A refresh in which some sections failed keeps those sections from the previous snapshot, still
+ * flagged degraded, instead of blanking them. Concurrent refresh requests share a single computation. Refresh
+ * time is recorded in the {@code dashboard.snapshot.refresh} timer, tagged success, degraded (partial data) or
+ * error.
+ */
+@Slf4j
+@Service
+public class DashboardSnapshotService {
+
+    private final DashboardService dashboardService;
+    private final Duration maxAge;
+    private final int refreshAfterPurchases;
+    private final Timer successTimer;
+    private final Timer degradedTimer;
+    private final Timer errorTimer;
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<CompletableFuture<ProductResponse<DashboardResponse>>> inFlight = new AtomicReference<>();
+    private final AtomicInteger purchasesSinceRefresh = new AtomicInteger();
+    private volatile ProductResponse<DashboardResponse> snapshot;
+
+    public DashboardSnapshotService(DashboardService dashboardService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${dashboard.snapshot.max-age:60s}") Duration maxAge,
+                                    @Value("${dashboard.snapshot.refresh-after-purchases:50}") int refreshAfterPurchases) {
+        this.dashboardService = dashboardService;
+        this.maxAge = maxAge;
+        this.refreshAfterPurchases = refreshAfterPurchases;
+        this.successTimer = Timer.builder("dashboard.snapshot.refresh").tag("outcome", "success")
+                .description("Time to recompute the dashboard snapshot").register(meterRegistry);
+        this.degradedTimer = Timer.builder("dashboard.snapshot.refresh").tag("outcome", "degraded")
+                .description("Time to recompute the dashboard snapshot").register(meterRegistry);
+        this.errorTimer = Timer.builder("dashboard.snapshot.refresh").tag("outcome", "error")
+                .description("Time to recompute the dashboard snapshot").register(meterRegistry);
+    }
+
+    /**
+     * Returns the current snapshot, waiting only when there is none yet.
+     */
+    public ProductResponse<DashboardResponse> getDashboard() {
+        ProductResponse<DashboardResponse> current = snapshot;
+        if (current == null) {
+            return refresh().join();
+        }
+        if (current.getData().getGeneratedAt().isBefore(LocalDateTime.now().minus(maxAge))) {
+            refresh();
+        }
+        return current;
+    }
+
+    /**
+     * Starts a recomputation, or joins the one already running.
+     */
+    public CompletableFuture<ProductResponse<DashboardResponse>> refresh() {
+        CompletableFuture<ProductResponse<DashboardResponse>> started = new CompletableFuture<>();
+        // a refresh that wins the race can also finish and clear inFlight before we read it, so retry until
+        // we either join a running refresh or start one
+        while (!inFlight.compareAndSet(null, started)) {
+            CompletableFuture<ProductResponse<DashboardResponse>> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+        }
+        purchasesSinceRefresh.set(0);
+        // cleared before completing, so nobody who sees the stale snapshot can join a finished refresh
+        refresher.execute(() -> {
+            ProductResponse<DashboardResponse> result;
+            try {
+                result = recompute();
+            } catch (Throwable e) {
+                inFlight.set(null);
+                started.completeExceptionally(e);
+                return;
+            }
+            inFlight.set(null);
+            started.complete(result);
+        });
+        return started;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.snapshot.refresh-interval:30s}",
+            initialDelayString = "${dashboard.snapshot.refresh-interval:30s}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Counts a purchase towards the next refresh; inside a transaction it only counts once committed.
+     */
+    public void recordPurchase() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    countPurchase();
+                }
+            });
+        } else {
+            countPurchase();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void countPurchase() {
+        if (purchasesSinceRefresh.incrementAndGet() >= refreshAfterPurchases) {
+            refresh();
+        }
+    }
+
+    private ProductResponse<DashboardResponse> recompute() {
+        long start = System.nanoTime();
+        ProductResponse<DashboardResponse> response = dashboardService.getDashboard();
+        boolean ok = "success".equals(response.getStatus());
+        Timer timer = !ok ? errorTimer : response.getData().isDegraded() ? degradedTimer : successTimer;
+        timer.record(Duration.ofNanos(System.nanoTime() - start));
+
+        if (ok) {
+            ProductResponse<DashboardResponse> previous = snapshot;
+            if (response.getData().isDegraded() && previous != null) {
+                response = fillFromSnapshot(response, previous);
+            }
+            snapshot = response;
+            return response;
+        }
+        // keep serving the last good snapshot rather than replacing it with an error
+        log.warn("Dashboard snapshot refresh failed: {}", response.getMessage());
+        return snapshot != null ? snapshot : response;
+    }
+
+    /**
+     * Copies the sections that failed this time from the previous snapshot, so one slow query does not
+     * blank them. The result stays marked degraded, with the same section names, since those sections are
+     * as old as the previous snapshot.
+     */
+    private static ProductResponse<DashboardResponse> fillFromSnapshot(ProductResponse<DashboardResponse> response,
+                                                                       ProductResponse<DashboardResponse> previous) {
+        DashboardResponse fresh = response.getData();
+        DashboardResponse last = previous.getData();
+        DashboardResponse.DashboardResponseBuilder merged = fresh.toBuilder();
+        for (String section : fresh.getDegradedSections()) {
+            switch (section) {
+                case "overview" -> merged.overview(last.getOverview());
+                case "topProducts" -> merged.topProducts(last.getTopProducts());
+                case "categoryStats" -> merged.categoryStats(last.getCategoryStats());
+                case "lowStockProducts" -> merged.lowStockProducts(last.getLowStockProducts());
+                case "recentOrders" -> merged.recentOrders(last.getRecentOrders());
+                default -> log.warn("Unknown dashboard section {}", section);
+            }
+        }
+        return ProductResponse.<DashboardResponse>builder()
+                .status(response.getStatus())
+                .message("Dashboard data fetched partially; " + String.join(", ", fresh.getDegradedSections())
+                        + " from the snapshot generated at " + last.getGeneratedAt())
+                .data(merged.build())
+                .build();
+    }
+}
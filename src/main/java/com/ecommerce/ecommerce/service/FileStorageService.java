@@ -4,14 +4,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 @Slf4j
 @Service
@@ -24,6 +36,21 @@ public class FileStorageService implements ImageStorageService {
     @Value("${file.base-url}")
     private String baseUrl;
 
+    @Value("${file.remote-image.max-size:10MB}")
+    private DataSize maxRemoteImageSize;
+
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_REDIRECTS = 3;
+
+    // redirects are followed in storeRemoteImage so every hop's address is checked
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    // which resolved addresses remote images may be fetched from; replaced in tests to reach a local server
+    private Predicate<InetAddress> allowedAddress = FileStorageService::isPublicAddress;
+
     public String storeImage(MultipartFile file) {
         try {
             if (file.isEmpty()) {
@@ -55,6 +82,132 @@ public class FileStorageService implements ImageStorageService {
         }
     }
 
+    /**
+     * Downloads the image at {@code sourceUrl} into the upload directory.
+     * <p>
+     * The URL comes from an import file, so the download is treated as untrusted: every hop (redirects are
+     * followed by hand, at most {@value #MAX_REDIRECTS}) must resolve only to public addresses, so loopback,
+     * link-local (including cloud metadata endpoints), private and other internal ranges are refused. The
+     * response must be {@code image/*} and at most {@code file.remote-image.max-size}; whatever was written
+     * is deleted when any check fails.
+     */
+    public String storeRemoteImage(String sourceUrl) {
+        Path target = null;
+        try {
+            URI uri = URI.create(sourceUrl);
+            HttpResponse<InputStream> response = null;
+            for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+                checkRemoteUri(uri);
+                response = httpClient.send(
+                        HttpRequest.newBuilder(uri).timeout(DOWNLOAD_TIMEOUT).GET().build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                int status = response.statusCode();
+                if (status < 300 || status >= 400 || status == 304) {
+                    break;
+                }
+                response.body().close();
+                String location = response.headers().firstValue("Location")
+                        .orElseThrow(() -> new RuntimeException("Redirect without Location from " + sourceUrl));
+                uri = uri.resolve(location);
+                if (hop == MAX_REDIRECTS) {
+                    throw new RuntimeException("Too many redirects downloading image: " + sourceUrl);
+                }
+            }
+
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("Failed to download image: HTTP " + response.statusCode());
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse("");
+                if (!contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+                    throw new RuntimeException("Not an image: Content-Type '" + contentType + "'");
+                }
+                long maxBytes = maxRemoteImageSize.toBytes();
+                if (response.headers().firstValueAsLong("Content-Length").orElse(-1) > maxBytes) {
+                    throw new RuntimeException("Image is larger than " + maxRemoteImageSize);
+                }
+
+                Path uploadPath = Paths.get(uploadDir);
+                if (!Files.exists(uploadPath)) {
+                    Files.createDirectories(uploadPath);
+                }
+
+                String path = uri.getPath();
+                String extension = "";
+                if (path != null && path.lastIndexOf('.') > path.lastIndexOf('/')) {
+                    extension = path.substring(path.lastIndexOf('.'));
+                }
+
+                String fileName = UUID.randomUUID().toString() + extension;
+                target = uploadPath.resolve(fileName);
+                // Content-Length may be missing or wrong, so the cap is enforced on the bytes actually read
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    byte[] buffer = new byte[8192];
+                    long total = 0;
+                    for (int read; (read = body.read(buffer)) != -1; ) {
+                        total += read;
+                        if (total > maxBytes) {
+                            throw new RuntimeException("Image is larger than " + maxRemoteImageSize);
+                        }
+                        out.write(buffer, 0, read);
+                    }
+                }
+                String stored = baseUrl + "/" + fileName;
+                target = null;
+                return stored;
+            }
+        } catch (IOException e) {
+            log.error("Failed to store remote image {}", sourceUrl, e);
+            throw new RuntimeException("Failed to store image: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while downloading image");
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid image URL: " + sourceUrl);
+        } finally {
+            if (target != null) {
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException e) {
+                    log.warn("Could not delete partial image {}", target, e);
+                }
+            }
+        }
+    }
+
+    private void checkRemoteUri(URI uri) throws UnknownHostException {
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())
+                || uri.getHost() == null) {
+            throw new RuntimeException("Unsupported image URL: " + uri);
+        }
+        for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+            if (!allowedAddress.test(address)) {
+                throw new RuntimeException("Image URL resolves to a non-public address: " + uri.getHost());
+            }
+        }
+    }
+
+    /**
+     * False for loopback, wildcard, link-local, site-local (10/8, 172.16/12, 192.168/16), multicast,
+     * carrier-grade NAT (100.64/10), IPv6 unique-local (fc00::/7) and IPv4-mapped forms of those.
+     */
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            return first != 0 && !(first == 100 && second >= 64 && second < 128);
+        }
+        if ((bytes[0] & 0xfe) == 0xfc) {
+            return false;
+        }
+        return true;
+    }
+
     public void deleteImage(String imageUrl) {
         try {
             if (imageUrl != null && imageUrl.startsWith(baseUrl)) {
@@ -4,5 +4,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 public interface ImageStorageService {
     String storeImage(MultipartFile file);
+    // copies an image published at an http(s) URL into storage, e.g. for catalog imports
+    String storeRemoteImage(String sourceUrl);
     void deleteImage(String imageUrl);
 }
@@ -0,0 +1,187 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.OrderRepository;
+import com.ecommerce.ecommerce.repositories.OrderRepository.OrderExportRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes orders with their line items to an output stream, one line per order line, as CSV or NDJSON.
+ * <p>
+ * Rows come from a forward-only database cursor ({@link OrderRepository#streamOrderExport}) and are written
+ * as they arrive, so memory use does not depend on the size of the export. Rows are projections, not
+ * entities, so the persistence context stays empty however many are read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final String CSV_HEADER = "order_id,created_at,status,total_amount,user_id,user_email,"
+            + "product_id,product_title,quantity,price_at_purchase";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderRepository orderRepository;
+    private final JsonMapper jsonMapper;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Case-insensitive lookup; null for an unknown format.
+         */
+        public static Format fromParameter(String value) {
+            for (Format format : values()) {
+                if (format.name().equals(value.toUpperCase(Locale.ROOT))) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Exports orders created in {@code [from, to)}; either bound may be null for no limit.
+     */
+    @Transactional(readOnly = true)
+    public void export(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long rows;
+        try (Stream<OrderExportRow> stream = orderRepository.streamOrderExport(
+                from != null ? from : EARLIEST, to != null ? to : LATEST)) {
+            Iterator<OrderExportRow> iterator = stream.iterator();
+            rows = format == Format.CSV ? writeCsv(iterator, out) : writeNdjson(iterator, out);
+        }
+        log.info("Exported {} order lines as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long writeCsv(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            writer.write(String.valueOf(row.getOrderId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getCreatedAt()));
+            writer.write(',');
+            writeCsvField(writer, row.getStatus());
+            writer.write(',');
+            writeCsvField(writer, plain(row.getTotalAmount()));
+            writer.write(',');
+            writeCsvField(writer, row.getUserId() != null ? row.getUserId().toString() : null);
+            writer.write(',');
+            writeCsvField(writer, row.getUserEmail());
+            writer.write(',');
+            writeCsvField(writer, row.getProductId() != null ? row.getProductId().toString() : null);
+            writer.write(',');
+            writeCsvField(writer, row.getProductTitle());
+            writer.write(',');
+            writeCsvField(writer, row.getQuantity() != null ? row.getQuantity().toString() : null);
+            writer.write(',');
+            writeCsvField(writer, plain(row.getPriceAtPurchase()));
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * RFC 4180: quoted only when it contains a separator, quote or line break; nulls are empty.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private long writeNdjson(Iterator<OrderExportRow> rows, OutputStream out) {
+        long count = 0;
+        // newline-terminated rather than Jackson's default space between root values; the container closes out
+        try (JsonGenerator generator = jsonMapper.writer()
+                .withRootValueSeparator("")
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(out)) {
+            while (rows.hasNext()) {
+                OrderExportRow row = rows.next();
+                generator.writeStartObject();
+                generator.writeNumberProperty("orderId", row.getOrderId());
+                generator.writeStringProperty("createdAt", String.valueOf(row.getCreatedAt()));
+                generator.writeStringProperty("status", row.getStatus());
+                generator.writeNumberProperty("totalAmount", row.getTotalAmount());
+                writeNullableNumber(generator, "userId", row.getUserId());
+                generator.writeStringProperty("userEmail", row.getUserEmail());
+                writeNullableNumber(generator, "productId", row.getProductId());
+                generator.writeStringProperty("productTitle", row.getProductTitle());
+                writeNullableNumber(generator, "quantity", row.getQuantity() != null ? row.getQuantity().longValue() : null);
+                generator.writeNumberProperty("priceAtPurchase", row.getPriceAtPurchase());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeNullableNumber(JsonGenerator generator, String name, Long value) {
+        if (value == null) {
+            generator.writeNullProperty(name);
+        } else {
+            generator.writeNumberProperty(name, value.longValue());
+        }
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : null;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on its own small pool, off the request threads.
+ * <p>
+ * A bcrypt hash costs a few hundred milliseconds of CPU, so a burst of logins or sign-ups on request threads
+ * would occupy all of them and starve every other endpoint. Here at most {@code auth.hashing.threads}
+ * hashes (default: one per core) run at once and {@code auth.hashing.queue-per-thread} more per thread wait,
+ * about as many as can finish within the wait limit at the default cost. When the queue is full, or a hash
+ * has not finished within {@code auth.hashing.max-wait}, the caller gets {@link PasswordHashingBusyException}
+ * (429) instead of piling up.
+ * <p>
+ * Meters: {@code auth.password.hash} (hash time, tagged by operation), {@code auth.password.hash.wait}
+ * (time queued), {@code auth.password.hash.queue} (queue depth) and {@code auth.password.hash.rejected}.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-per-thread:8}") int queuePerThread,
+                                  @Value("${auth.hashing.max-wait:3s}") Duration maxWait,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * queuePerThread), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxWaitNanos = maxWait.toNanos();
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode")
+                .description("Password hashing time").register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches")
+                .description("Password hashing time").register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.password.hash.wait")
+                .description("Time a password hash waited for a hashing thread").register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+                .description("Password hashes turned away because the hashing pool was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(submit(encodeTimer, () -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether the stored hash was made with weaker settings than the current ones; only reads the hash's prefix.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hashes the password again with the current settings and hands the new hash to {@code onHashed} on the
+     * hashing thread. Skipped when the pool is busy; the next login tries again.
+     */
+    public void rehashInBackground(CharSequence rawPassword, Consumer<String> onHashed) {
+        try {
+            submit(encodeTimer, () -> {
+                onHashed.accept(passwordEncoder.encode(rawPassword));
+                return null;
+            });
+        } catch (PasswordHashingBusyException e) {
+            log.debug("Hashing pool busy, skipping password rehash");
+        }
+    }
+
+    private <T> Future<T> submit(Timer timer, Supplier<T> hash) {
+        long submitted = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.record(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many authentication requests, try again shortly");
+        }
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // drops it from the queue if it has not started yet
+            result.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many authentication requests, try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
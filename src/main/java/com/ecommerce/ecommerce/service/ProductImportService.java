@@ -0,0 +1,622 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductImportJobResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Category;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk product import from a CSV or NDJSON file, run as a background job.
+ * <p>
+ * The upload is spooled to a temporary file and read row by row, so the file size does not matter for
+ * memory. Columns (CSV header or JSON keys, case and separators ignored): {@code title}, {@code price},
+ * optional {@code description}, {@code quantity}, {@code category} (a category name) and {@code imageUrl}.
+ * Valid rows are collected into batches of {@code import.products.batch-size}; each batch first copies its
+ * images into storage, {@code import.products.image-parallelism} at a time, then inserts its products in one
+ * transaction, which Hibernate sends as JDBC batches. A batch that fails is retried row by row, so only the
+ * rows the database rejects fail. Invalid rows, failed images and rejected rows are reported per row on the
+ * job, which callers poll by id.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * From the explicit parameter if given, otherwise from the file extension; null when neither matches.
+         */
+        static Format resolve(String parameter, String filename) {
+            String value = parameter;
+            if (value == null || value.isBlank()) {
+                if (filename == null || !filename.contains(".")) {
+                    return null;
+                }
+                value = filename.substring(filename.lastIndexOf('.') + 1);
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "ndjson", "jsonl" -> NDJSON;
+                default -> null;
+            };
+        }
+    }
+
+    private static final int MAX_TITLE_LENGTH = 120;
+    // products.description is a default varchar(255)
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ImageStorageService imageStorageService;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CatalogResponseCache catalogResponseCache;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxReportedFailures;
+
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService imageExecutor;
+
+    public ProductImportService(ProductRepository productRepository,
+                                CategoryRepository categoryRepository,
+                                ImageStorageService imageStorageService,
+                                ProductSuggestIndex productSuggestIndex,
+                                CatalogResponseCache catalogResponseCache,
+                                JsonMapper jsonMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${import.products.batch-size:500}") int batchSize,
+                                @Value("${import.products.image-parallelism:8}") int imageParallelism,
+                                @Value("${import.products.max-queued-jobs:4}") int maxQueuedJobs,
+                                @Value("${import.products.max-reported-failures:1000}") int maxReportedFailures) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.imageStorageService = imageStorageService;
+        this.productSuggestIndex = productSuggestIndex;
+        this.catalogResponseCache = catalogResponseCache;
+        this.jsonMapper = jsonMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxReportedFailures = maxReportedFailures;
+        // one import at a time, a few queued behind it
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs), daemonThreads("product-import"));
+        this.imageExecutor = Executors.newFixedThreadPool(imageParallelism, daemonThreads("product-import-image"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        imageExecutor.shutdownNow();
+    }
+
+    public ProductResponse<ProductImportJobResponse> startImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            return error("Import file is required");
+        }
+        Format importFormat = Format.resolve(format, file.getOriginalFilename());
+        if (importFormat == null) {
+            return error("Unsupported import format; use a .csv or .ndjson file or pass format=csv|ndjson");
+        }
+
+        Path spooled = null;
+        try {
+            // the multipart upload is gone once the request ends, so the job reads its own copy
+            spooled = Files.createTempFile("product-import-", "." + importFormat.name().toLowerCase(Locale.ROOT));
+            file.transferTo(spooled);
+
+            Job job = new Job(UUID.randomUUID().toString(), importFormat);
+            Path source = spooled;
+            jobs.put(job.id, job);
+            try {
+                jobExecutor.execute(() -> run(job, source));
+            } catch (RejectedExecutionException e) {
+                jobs.invalidate(job.id);
+                Files.deleteIfExists(spooled);
+                return error("Too many imports in progress, try again later");
+            }
+
+            log.info("Product import {} queued ({}, {} bytes)", job.id, importFormat, file.getSize());
+            return ProductResponse.<ProductImportJobResponse>builder()
+                    .status("success")
+                    .message("Product import started")
+                    .data(job.toResponse())
+                    .build();
+        } catch (IOException e) {
+            log.error("Error starting product import", e);
+            deleteQuietly(spooled);
+            return error("Failed to start import: " + e.getMessage());
+        }
+    }
+
+    public ProductResponse<ProductImportJobResponse> getJob(String jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            return error("Import job not found");
+        }
+        return ProductResponse.<ProductImportJobResponse>builder()
+                .status("success")
+                .message("Import job fetched successfully")
+                .data(job.toResponse())
+                .build();
+    }
+
+    private void run(Job job, Path source) {
+        job.status = "RUNNING";
+        long start = System.nanoTime();
+        // category names repeat on nearly every row, so each distinct name is looked up once per job
+        Map<String, Optional<Long>> categoryIds = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            RowReader rows = job.format == Format.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+            List<PendingProduct> batch = new ArrayList<>(batchSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                job.processedRows++;
+                PendingProduct pending = validate(job, row, categoryIds);
+                if (pending != null) {
+                    batch.add(pending);
+                }
+                if (batch.size() >= batchSize) {
+                    importBatch(job, batch);
+                    batch.clear();
+                }
+            }
+            importBatch(job, batch);
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            log.error("Product import {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            deleteQuietly(source);
+            if (job.importedRows > 0) {
+                catalogResponseCache.invalidate(CatalogResponseCache.PRODUCTS);
+                catalogResponseCache.invalidate(CatalogResponseCache.CATEGORIES);
+            }
+            log.info("Product import {} {}: {} rows, {} imported, {} failed in {} ms", job.id, job.status,
+                    job.processedRows, job.importedRows, job.failedRows, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private PendingProduct validate(Job job, ImportRow row, Map<String, Optional<Long>> categoryIds) {
+        if (row.error() != null) {
+            job.fail(row.number(), row.error(), maxReportedFailures);
+            return null;
+        }
+
+        String title = row.get("title");
+        if (title == null) {
+            job.fail(row.number(), "title is required", maxReportedFailures);
+            return null;
+        }
+        if (title.length() > MAX_TITLE_LENGTH) {
+            job.fail(row.number(), "title is longer than " + MAX_TITLE_LENGTH + " characters", maxReportedFailures);
+            return null;
+        }
+
+        String description = row.get("description");
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            job.fail(row.number(), "description is longer than " + MAX_DESCRIPTION_LENGTH + " characters",
+                    maxReportedFailures);
+            return null;
+        }
+
+        BigDecimal price;
+        try {
+            price = new BigDecimal(row.getOrDefault("price", ""));
+        } catch (NumberFormatException e) {
+            job.fail(row.number(), "price must be a number", maxReportedFailures);
+            return null;
+        }
+        if (price.signum() <= 0) {
+            job.fail(row.number(), "price must be greater than zero", maxReportedFailures);
+            return null;
+        }
+
+        int quantity;
+        try {
+            quantity = Integer.parseInt(row.getOrDefault("quantity", "0"));
+        } catch (NumberFormatException e) {
+            job.fail(row.number(), "quantity must be a whole number", maxReportedFailures);
+            return null;
+        }
+        if (quantity < 0) {
+            job.fail(row.number(), "quantity cannot be negative", maxReportedFailures);
+            return null;
+        }
+
+        Long categoryId = null;
+        String categoryName = row.get("category");
+        if (categoryName != null) {
+            Optional<Long> resolved = categoryIds.computeIfAbsent(categoryName,
+                    name -> categoryRepository.findByName(name).map(Category::getId));
+            if (resolved.isEmpty()) {
+                job.fail(row.number(), "unknown category: " + categoryName, maxReportedFailures);
+                return null;
+            }
+            categoryId = resolved.get();
+        }
+
+        String imageUrl = row.get("imageurl");
+        if (imageUrl != null && !imageUrl.startsWith("http://") && !imageUrl.startsWith("https://")) {
+            job.fail(row.number(), "imageUrl must be an http(s) URL", maxReportedFailures);
+            return null;
+        }
+
+        Products product = new Products();
+        product.setTitle(title);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        product.setCategoryId(categoryId);
+        product.setProductUrl("");
+        return new PendingProduct(row.number(), product, imageUrl);
+    }
+
+    private void importBatch(Job job, List<PendingProduct> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<Void>> uploads = new ArrayList<>();
+        for (PendingProduct pending : batch) {
+            if (pending.imageUrl != null) {
+                uploads.add(CompletableFuture
+                        .runAsync(() -> pending.product.setProductUrl(
+                                imageStorageService.storeRemoteImage(pending.imageUrl)), imageExecutor)
+                        .exceptionally(e -> {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            pending.imageError = cause.getMessage();
+                            return null;
+                        }));
+            }
+        }
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+
+        List<PendingProduct> ready = new ArrayList<>(batch.size());
+        for (PendingProduct pending : batch) {
+            if (pending.imageError != null) {
+                job.fail(pending.row, "image upload failed: " + pending.imageError, maxReportedFailures);
+            } else {
+                ready.add(pending);
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Products> saved = transactionTemplate.execute(
+                    status -> productRepository.saveAll(ready.stream().map(pending -> pending.product).toList()));
+            saved.forEach(productSuggestIndex::upsert);
+            job.importedRows += ready.size();
+        } catch (RuntimeException e) {
+            // one bad row fails the whole batch; retry the rows one by one so only the bad ones are reported
+            log.warn("Product import {} batch of {} rows failed, retrying row by row", job.id, ready.size(), e);
+            for (PendingProduct pending : ready) {
+                importRow(job, pending);
+            }
+        }
+    }
+
+    private void importRow(Job job, PendingProduct pending) {
+        // the failed batch may have assigned an id that was never committed
+        pending.product.setId(null);
+        try {
+            Products saved = transactionTemplate.execute(status -> productRepository.save(pending.product));
+            productSuggestIndex.upsert(saved);
+            job.importedRows++;
+        } catch (RuntimeException e) {
+            job.fail(pending.row, "insert failed: " + e.getMessage(), maxReportedFailures);
+            if (pending.imageUrl != null) {
+                imageStorageService.deleteImage(pending.product.getProductUrl());
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", path, e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ProductResponse<ProductImportJobResponse> error(String message) {
+        return ProductResponse.<ProductImportJobResponse>builder()
+                .status("error")
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Column names are matched lowercased with separators removed, so "Image URL", "image_url" and
+     * "imageUrl" are the same column.
+     */
+    static String normalizeColumn(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * One input row; {@code error} is set instead of fields when the row could not be parsed.
+     */
+    record ImportRow(long number, Map<String, String> fields, String error) {
+
+        /**
+         * Trimmed value of a normalized column, null when missing or blank.
+         */
+        String get(String column) {
+            String value = fields.get(column);
+            if (value == null) {
+                return null;
+            }
+            value = value.trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        String getOrDefault(String column, String defaultValue) {
+            String value = get(column);
+            return value != null ? value : defaultValue;
+        }
+    }
+
+    interface RowReader {
+        // null at end of input
+        ImportRow next() throws IOException;
+    }
+
+    /**
+     * RFC 4180 records (quoted fields may contain separators, doubled quotes and line breaks); the first
+     * record is the header. Blank lines are skipped.
+     */
+    static final class CsvRowReader implements RowReader {
+
+        private final Reader reader;
+        private final List<String> columns = new ArrayList<>();
+        private long number;
+
+        CsvRowReader(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) {
+                return;
+            }
+            for (String column : header) {
+                // a UTF-8 byte order mark shows up in front of the first column name
+                columns.add(normalizeColumn(column.replace("\uFEFF", "")));
+            }
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            List<String> values = readRecord();
+            if (values == null) {
+                return null;
+            }
+            number++;
+            if (values.size() > columns.size()) {
+                return new ImportRow(number, Map.of(), "expected " + columns.size() + " columns but found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(columns.get(i), values.get(i));
+            }
+            return new ImportRow(number, fields, null);
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r') {
+                    // handled with the following '\n'
+                } else if (c == '\n') {
+                    if (values.isEmpty() && field.isEmpty()) {
+                        any = false;
+                        continue;
+                    }
+                    values.add(field.toString());
+                    return values;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            values.add(field.toString());
+            return values;
+        }
+    }
+
+    /**
+     * One JSON object per line; blank lines are skipped.
+     */
+    final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private long number;
+
+        NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            number++;
+
+            JsonNode node;
+            try {
+                node = jsonMapper.readTree(line);
+            } catch (RuntimeException e) {
+                return new ImportRow(number, Map.of(), "malformed JSON");
+            }
+            if (!node.isObject()) {
+                return new ImportRow(number, Map.of(), "expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, JsonNode> property : node.properties()) {
+                JsonNode value = property.getValue();
+                fields.put(normalizeColumn(property.getKey()), value.isNull() ? null : value.asString());
+            }
+            return new ImportRow(number, fields, null);
+        }
+    }
+
+    private static final class PendingProduct {
+        final long row;
+        final Products product;
+        final String imageUrl;
+        volatile String imageError;
+
+        PendingProduct(long row, Products product, String imageUrl) {
+            this.row = row;
+            this.product = product;
+            this.imageUrl = imageUrl;
+        }
+    }
+
+    /**
+     * Progress is written only by the job thread and read by status requests.
+     */
+    private static final class Job {
+        final String id;
+        final Format format;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final List<ProductImportJobResponse.RowFailure> failures = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "QUEUED";
+        volatile long processedRows;
+        volatile long importedRows;
+        volatile long failedRows;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+
+        Job(String id, Format format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        void fail(long row, String message, int maxReported) {
+            failedRows++;
+            if (failures.size() < maxReported) {
+                failures.add(ProductImportJobResponse.RowFailure.builder().row(row).message(message).build());
+            }
+        }
+
+        ProductImportJobResponse toResponse() {
+            List<ProductImportJobResponse.RowFailure> reported;
+            synchronized (failures) {
+                reported = new ArrayList<>(failures);
+            }
+            return ProductImportJobResponse.builder()
+                    .jobId(id)
+                    .status(status)
+                    .format(format.name())
+                    .processedRows(processedRows)
+                    .importedRows(importedRows)
+                    .failedRows(failedRows)
+                    .failures(reported)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -4,16 +4,17 @@ package com.ecommerce.ecommerce.service;
 import com.ecommerce.ecommerce.models.CreateProductRequest;
 import com.ecommerce.ecommerce.models.FetchProductResponse;
 import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.models.ProductSliceResponse;
 import com.ecommerce.ecommerce.models.UpdateProductRequest;
-import com.ecommerce.ecommerce.repositories.CategoryRepository;
 import com.ecommerce.ecommerce.repositories.ProductRepository;
-import com.ecommerce.ecommerce.schemas.Category;
 import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.util.ProductCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,18 +28,20 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
     private final ImageStorageService imageStorageService;
+    private final CategoryNameCache categoryNameCache;
+    private final StockReservationLedger stockReservationLedger;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CatalogResponseCache catalogResponseCache;
 
     public ProductResponse<List<FetchProductResponse>> fetchProducts(int page, int limit, String searchQuery) {
         try {
-            Pageable pageable = PageRequest.of(page, limit, Sort.by("createdAt").descending());
-
             Page<Products> productsPage;
             if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-                productsPage = productRepository.searchProducts(searchQuery, pageable);
+                // search results come back in relevance order
+                productsPage = productRepository.searchProducts(searchQuery, PageRequest.of(page, limit));
             } else {
-                productsPage = productRepository.findAll(pageable);
+                productsPage = productRepository.findAll(PageRequest.of(page, limit, Sort.by("createdAt").descending()));
             }
 
             List<FetchProductResponse> productList = productsPage.getContent().stream()
@@ -59,6 +62,49 @@ public class ProductService {
         }
     }
 
+    /**
+     * Keyset mode of {@link #fetchProducts}: seeks past the cursor on the (createdAt, id) index instead of
+     * skipping an offset, and returns a slice without counting the catalog. A blank cursor starts at the top.
+     */
+    public ProductResponse<ProductSliceResponse> fetchProductsAfter(String cursor, int limit) {
+        try {
+            Pageable pageable = PageRequest.ofSize(limit);
+
+            Slice<Products> slice;
+            if (cursor == null || cursor.isBlank()) {
+                slice = productRepository.findAllByOrderByCreatedAtDescIdDesc(pageable);
+            } else {
+                ProductCursor after = ProductCursor.decode(cursor);
+                slice = productRepository.findPageAfter(after.createdAt(), after.id(), pageable);
+            }
+
+            List<Products> products = slice.getContent();
+            String nextCursor = null;
+            if (slice.hasNext()) {
+                Products last = products.get(products.size() - 1);
+                nextCursor = new ProductCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+
+            ProductSliceResponse response = ProductSliceResponse.builder()
+                    .products(products.stream().map(this::mapToFetchProductResponse).toList())
+                    .nextCursor(nextCursor)
+                    .hasNext(slice.hasNext())
+                    .build();
+
+            return ProductResponse.<ProductSliceResponse>builder()
+                    .status("success")
+                    .message("Products fetched successfully")
+                    .data(response)
+                    .build();
+        } catch (Exception e) {
+            log.error("Error fetching products after cursor {}", cursor, e);
+            return ProductResponse.<ProductSliceResponse>builder()
+                    .status("error")
+                    .message("Failed to fetch products: " + e.getMessage())
+                    .build();
+        }
+    }
+
     public ProductResponse<FetchProductResponse> getProductById(Long productId) {
         try {
             Optional<Products> productOpt = productRepository.findById(productId);
@@ -103,6 +149,8 @@ public class ProductService {
             product.setCategoryId(payload.getCategoryId());
 
             Products savedProduct = productRepository.save(product);
+            productSuggestIndex.upsert(savedProduct);
+            invalidateCatalogResponses();
             log.info("Product created successfully with ID: {}", savedProduct.getId());
 
             return ProductResponse.<FetchProductResponse>builder()
@@ -141,6 +189,7 @@ public class ProductService {
             }
             if (payload.getQuantity() > 0) {
                 existingProduct.setQuantity(payload.getQuantity());
+                stockReservationLedger.invalidate(existingProduct.getId());
             }
             if (payload.getAmount() != null) {
                 existingProduct.setPrice(payload.getAmount());
@@ -157,6 +206,8 @@ public class ProductService {
             }
 
             Products updatedProduct = productRepository.save(existingProduct);
+            productSuggestIndex.upsert(updatedProduct);
+            invalidateCatalogResponses();
             log.info("Product updated successfully with ID: {}", updatedProduct.getId());
 
             return ProductResponse.<FetchProductResponse>builder()
@@ -188,6 +239,9 @@ public class ProductService {
             Products product = productOpt.get();
             imageStorageService.deleteImage(product.getProductUrl());
             productRepository.delete(product);
+            stockReservationLedger.invalidate(productId);
+            productSuggestIndex.remove(productId);
+            invalidateCatalogResponses();
 
             log.info("Product deleted successfully with ID: {}", productId);
 
@@ -204,14 +258,13 @@ public class ProductService {
         }
     }
 
-    private FetchProductResponse mapToFetchProductResponse(Products product) {
-        String categoryName = null;
-        if (product.getCategoryId() != null) {
-            categoryName = categoryRepository.findById(product.getCategoryId())
-                    .map(Category::getName)
-                    .orElse(null);
-        }
+    // category listings carry product counts, so they go stale with the products
+    private void invalidateCatalogResponses() {
+        catalogResponseCache.invalidate(CatalogResponseCache.PRODUCTS);
+        catalogResponseCache.invalidate(CatalogResponseCache.CATEGORIES);
+    }
 
+    private FetchProductResponse mapToFetchProductResponse(Products product) {
         return FetchProductResponse.builder()
                 .id(product.getId())
                 .title(product.getTitle())
@@ -221,7 +274,7 @@ public class ProductService {
                 .price(product.getPrice())
                 .productUrl(product.getProductUrl())
                 .categoryId(product.getCategoryId())
-                .categoryName(categoryName)
+                .categoryName(categoryNameCache.getName(product.getCategoryId()))
                 .build();
     }
 }
@@ -0,0 +1,367 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductSuggestion;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Products;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product titles and descriptions for typeahead, so a keystroke never
+ * reaches the database.
+ * <p>
+ * Each product gets a dense int slot; terms map to sorted int postings in a {@link TreeMap}, so a prefix is
+ * a sub-map range. Every query word must prefix-match the title or description; products matching all
+ * words in the title come first, each group newest (highest id) first. Updates and deletes tombstone the
+ * old slot, and once tombstones outnumber live products the index is rebuilt from the database on a
+ * background thread, never on the request that made the edit.
+ * <p>
+ * Built in the background on startup and kept current by {@link ProductService}; per instance, like the
+ * stock ledger. Disable with {@code search.suggest.enabled=false}.
+ */
+@Slf4j
+@Component
+public class ProductSuggestIndex {
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> titleTerms = new TreeMap<>();
+    private final TreeMap<String, Postings> descriptionTerms = new TreeMap<>();
+    private final Map<Long, Integer> slotByProductId = new HashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<String> titles = new ArrayList<>();
+    // highest product id in slots 0..i, so a newest-first scan from the top slot knows when to stop
+    private long[] maxIdThroughSlot = new long[1024];
+    private final BitSet live = new BitSet();
+    // one rebuild at a time; while it reads the database, changes are also recorded here (under the lock)
+    private final Object buildLock = new Object();
+    private List<Runnable> changesDuringBuild;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile boolean ready;
+    // read by the gauges without taking the lock
+    private volatile int documentCount;
+    private volatile int termCount;
+
+    public ProductSuggestIndex(ProductRepository productRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${search.suggest.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        Gauge.builder("product.suggest.documents", this, index -> index.documentCount)
+                .description("Products in the suggest index")
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.terms", this, index -> index.termCount)
+                .description("Distinct terms in the suggest index")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Queues a rebuild on the background thread unless one is already waiting.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        if (!enabled || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        rebuilder.execute(() -> {
+            rebuildQueued.set(false);
+            try {
+                build();
+            } catch (RuntimeException e) {
+                log.error("Error rebuilding suggest index", e);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the index from the database. Products are read without holding the lock, so edits that
+     * commit meanwhile may or may not be in what was read; they are recorded and replayed onto the new
+     * index before it replaces the old one.
+     */
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (buildLock) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changesDuringBuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<ProductRepository.SuggestSource> products;
+            try {
+                products = productRepository.findAllSuggestSources();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringBuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                titleTerms.clear();
+                descriptionTerms.clear();
+                slotByProductId.clear();
+                productIds.clear();
+                titles.clear();
+                live.clear();
+                for (ProductRepository.SuggestSource product : products) {
+                    add(product.getId(), product.getTitle(), product.getDescription());
+                }
+                // every change is "tombstone, then add the latest", so replaying one already in the read is harmless
+                changesDuringBuild.forEach(Runnable::run);
+                changesDuringBuild = null;
+                updateCounts();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Suggest index built: {} products, {} terms in {} ms", documentCount, termCount,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Indexes a created or edited product; inside a transaction this happens after commit.
+     */
+    public void upsert(Products product) {
+        if (!enabled) {
+            return;
+        }
+        Long id = product.getId();
+        String title = product.getTitle();
+        String description = product.getDescription();
+        afterCommit(() -> mutate(() -> {
+            tombstone(id);
+            add(id, title, description);
+        }));
+    }
+
+    public void remove(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> mutate(() -> tombstone(productId)));
+    }
+
+    public List<ProductSuggestion> suggest(String query, int limit) {
+        String[] words = tokenize(query).toArray(String[]::new);
+        if (words.length == 0 || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet inTitle = null;
+            BitSet anywhere = null;
+            for (String word : words) {
+                BitSet titleHits = matching(titleTerms, word);
+                BitSet hits = matching(descriptionTerms, word);
+                hits.or(titleHits);
+                inTitle = and(inTitle, titleHits);
+                anywhere = and(anywhere, hits);
+            }
+            inTitle.and(live);
+            anywhere.and(live);
+            anywhere.andNot(inTitle);
+
+            List<ProductSuggestion> suggestions = new ArrayList<>(limit);
+            collectNewestFirst(inTitle, suggestions, limit);
+            collectNewestFirst(anywhere, suggestions, limit);
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void mutate(Runnable change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringBuild != null) {
+                changesDuringBuild.add(change);
+            }
+            updateCounts();
+            compact = changesDuringBuild == null && productIds.size() > 2 * Math.max(documentCount, 1000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            rebuildInBackground();
+        }
+    }
+
+    private void add(Long productId, String title, String description) {
+        int slot = productIds.size();
+        if (slot == maxIdThroughSlot.length) {
+            maxIdThroughSlot = Arrays.copyOf(maxIdThroughSlot, slot * 2);
+        }
+        maxIdThroughSlot[slot] = slot > 0 ? Math.max(maxIdThroughSlot[slot - 1], productId) : productId;
+        productIds.add(productId);
+        titles.add(title);
+        slotByProductId.put(productId, slot);
+        live.set(slot);
+        for (String term : tokenize(title)) {
+            titleTerms.computeIfAbsent(term, t -> new Postings()).add(slot);
+        }
+        for (String term : tokenize(description)) {
+            descriptionTerms.computeIfAbsent(term, t -> new Postings()).add(slot);
+        }
+    }
+
+    private void updateCounts() {
+        documentCount = slotByProductId.size();
+        termCount = titleTerms.size() + descriptionTerms.size();
+    }
+
+    private void tombstone(Long productId) {
+        Integer slot = slotByProductId.remove(productId);
+        if (slot != null) {
+            live.clear(slot);
+            titles.set(slot, null);
+        }
+    }
+
+    /**
+     * Appends the matches with the highest product ids. Slot order is not enough: an edited product is
+     * re-added at the end and would otherwise rank as the newest.
+     */
+    private void collectNewestFirst(BitSet slots, List<ProductSuggestion> out, int limit) {
+        int wanted = limit - out.size();
+        if (wanted <= 0) {
+            return;
+        }
+        // min-heap on id holding the best "wanted" slots seen so far
+        PriorityQueue<Integer> newest = new PriorityQueue<>(wanted + 1,
+                (a, b) -> Long.compare(productIds.get(a), productIds.get(b)));
+        for (int slot = slots.previousSetBit(slots.length() - 1); slot >= 0; slot = slots.previousSetBit(slot - 1)) {
+            if (newest.size() == wanted && maxIdThroughSlot[slot] < productIds.get(newest.peek())) {
+                // nothing at or below this slot beats what is kept; ids mostly grow with the slot, so this
+                // usually stops right after the first "wanted" matches
+                break;
+            }
+            newest.add(slot);
+            if (newest.size() > wanted) {
+                newest.poll();
+            }
+        }
+        ProductSuggestion[] ordered = new ProductSuggestion[newest.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            int slot = newest.poll();
+            ordered[i] = new ProductSuggestion(productIds.get(slot), titles.get(slot));
+        }
+        out.addAll(Arrays.asList(ordered));
+    }
+
+    private static BitSet matching(TreeMap<String, Postings> terms, String prefix) {
+        BitSet hits = new BitSet();
+        NavigableMap<String, Postings> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Postings postings : range.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                hits.set(postings.slots[i]);
+            }
+        }
+        return hits;
+    }
+
+    private static BitSet and(BitSet acc, BitSet next) {
+        if (acc == null) {
+            return next;
+        }
+        acc.and(next);
+        return acc;
+    }
+
+    /**
+     * Same word split as the database search: runs of letters and digits, lower-cased, de-duplicated.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Growable, ascending int array; slots are only ever appended in increasing order.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.ecommerce.service;
 
+import com.ecommerce.ecommerce.models.AuthenticatedUser;
 import com.ecommerce.ecommerce.models.BulkPurchaseRequest;
 import com.ecommerce.ecommerce.models.ProductResponse;
 import com.ecommerce.ecommerce.models.PurchaseProductRequest;
@@ -7,20 +8,21 @@ import com.ecommerce.ecommerce.models.PurchasedProductResponse;
 import com.ecommerce.ecommerce.repositories.OrderRepository;
 import com.ecommerce.ecommerce.repositories.ProductRepository;
 import com.ecommerce.ecommerce.repositories.PurchasedProductRepository;
-import com.ecommerce.ecommerce.repositories.UserRepository;
-import com.ecommerce.ecommerce.schemas.EcommerceUsers;
 import com.ecommerce.ecommerce.schemas.Orders;
 import com.ecommerce.ecommerce.schemas.Products;
 import com.ecommerce.ecommerce.schemas.PurchasedProducts;
-import com.ecommerce.ecommerce.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -30,23 +32,15 @@ public class PurchasedProductService {
 
     private final PurchasedProductRepository purchasedProductRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
     private final OrderRepository orderRepository;
-    private final JwtUtil jwtUtil;
+    private final SalesRollupService salesRollupService;
+    private final StockReservationLedger stockReservationLedger;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final CatalogResponseCache catalogResponseCache;
 
     @Transactional
-    public ProductResponse<PurchasedProductResponse> purchaseProduct(String token, PurchaseProductRequest request) {
+    public ProductResponse<PurchasedProductResponse> purchaseProduct(AuthenticatedUser user, PurchaseProductRequest request) {
         try {
-            String email = jwtUtil.extractSubject(token);
-            Optional<EcommerceUsers> userOpt = userRepository.findByEmail(email);
-
-            if (userOpt.isEmpty()) {
-                return ProductResponse.<PurchasedProductResponse>builder()
-                        .status("error")
-                        .message("User not found")
-                        .build();
-            }
-
             Optional<Products> productOpt = productRepository.findById(request.getProductId());
             if (productOpt.isEmpty()) {
                 return ProductResponse.<PurchasedProductResponse>builder()
@@ -58,7 +52,7 @@ public class PurchasedProductService {
             Products product = productOpt.get();
             int quantity = request.getQuantity() > 0 ? request.getQuantity() : 1;
 
-            if (product.getQuantity() < quantity) {
+            if (!reserveStock(product.getId(), quantity)) {
                 return ProductResponse.<PurchasedProductResponse>builder()
                         .status("error")
                         .message("Insufficient stock available")
@@ -68,25 +62,26 @@ public class PurchasedProductService {
             BigDecimal totalAmount = product.getPrice().multiply(BigDecimal.valueOf(quantity));
 
             Orders order = new Orders();
-            order.setUserId(userOpt.get().getId());
+            order.setUserId(user.userId());
             order.setTotalAmount(totalAmount);
             order.setStatus("COMPLETED");
             Orders savedOrder = orderRepository.save(order);
 
             PurchasedProducts purchasedProduct = new PurchasedProducts();
             purchasedProduct.setProductId(product.getId());
-            purchasedProduct.setUserId(userOpt.get().getId());
+            purchasedProduct.setUserId(user.userId());
             purchasedProduct.setQuantity(quantity);
             purchasedProduct.setOrderId(savedOrder.getId());
             purchasedProduct.setPriceAtPurchase(product.getPrice());
 
-            PurchasedProducts saved = purchasedProductRepository.save(purchasedProduct);
+            PurchasedProducts saved = purchasedProductRepository.saveAndFlush(purchasedProduct);
 
-            product.setQuantity(product.getQuantity() - quantity);
-            productRepository.save(product);
+            salesRollupService.recordOrder(savedOrder, List.of(saved), Map.of(product.getId(), product));
+            dashboardSnapshotService.recordPurchase();
+            catalogResponseCache.recordStockChange();
 
             log.info("Product purchased successfully. OrderId: {}, PurchaseId: {}, ProductId: {}, UserId: {}",
-                    savedOrder.getId(), saved.getId(), product.getId(), userOpt.get().getId());
+                    savedOrder.getId(), saved.getId(), product.getId(), user.userId());
 
             PurchasedProductResponse response = PurchasedProductResponse.builder()
                     .id(saved.getId())
@@ -106,6 +101,8 @@ public class PurchasedProductService {
                     .build();
         } catch (Exception e) {
             log.error("Error purchasing product", e);
+            // the error is reported in the body, so undo any stock already taken
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ProductResponse.<PurchasedProductResponse>builder()
                     .status("error")
                     .message("Failed to purchase product: " + e.getMessage())
@@ -114,18 +111,8 @@ public class PurchasedProductService {
     }
 
     @Transactional
-    public ProductResponse<List<PurchasedProductResponse>> purchaseProducts(String token, BulkPurchaseRequest request) {
+    public ProductResponse<List<PurchasedProductResponse>> purchaseProducts(AuthenticatedUser user, BulkPurchaseRequest request) {
         try {
-            String email = jwtUtil.extractSubject(token);
-            Optional<EcommerceUsers> userOpt = userRepository.findByEmail(email);
-
-            if (userOpt.isEmpty()) {
-                return ProductResponse.<List<PurchasedProductResponse>>builder()
-                        .status("error")
-                        .message("User not found")
-                        .build();
-            }
-
             if (request.getProducts() == null || request.getProducts().isEmpty()) {
                 return ProductResponse.<List<PurchasedProductResponse>>builder()
                         .status("error")
@@ -133,26 +120,31 @@ public class PurchasedProductService {
                         .build();
             }
 
-            Long userId = userOpt.get().getId();
-            List<PurchasedProductResponse> purchasedList = new ArrayList<>();
+            Long userId = user.userId();
+
+            // one query for the whole cart instead of a findById per line
+            Map<Long, Products> productsById = new HashMap<>();
+            for (Products product : productRepository.findAllById(
+                    request.getProducts().stream().map(PurchaseProductRequest::getProductId).toList())) {
+                productsById.put(product.getId(), product);
+            }
 
             BigDecimal totalAmount = BigDecimal.ZERO;
-            List<Products> productsToUpdate = new ArrayList<>();
-            List<PurchaseProductRequest> validatedItems = new ArrayList<>();
+            Map<Long, Integer> quantitiesByProductId = new LinkedHashMap<>();
 
             for (PurchaseProductRequest item : request.getProducts()) {
-                Optional<Products> productOpt = productRepository.findById(item.getProductId());
-                if (productOpt.isEmpty()) {
+                Products product = productsById.get(item.getProductId());
+                if (product == null) {
                     return ProductResponse.<List<PurchasedProductResponse>>builder()
                             .status("error")
                             .message("Product not found: ID " + item.getProductId())
                             .build();
                 }
 
-                Products product = productOpt.get();
                 int quantity = item.getQuantity() > 0 ? item.getQuantity() : 1;
+                int requested = quantitiesByProductId.merge(product.getId(), quantity, Integer::sum);
 
-                if (product.getQuantity() < quantity) {
+                if (product.getQuantity() < requested) {
                     return ProductResponse.<List<PurchasedProductResponse>>builder()
                             .status("error")
                             .message("Insufficient stock for product: " + product.getTitle())
@@ -160,8 +152,15 @@ public class PurchasedProductService {
                 }
 
                 totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
-                productsToUpdate.add(product);
-                validatedItems.add(item);
+            }
+
+            Long insufficientId = reserveStock(quantitiesByProductId);
+            if (insufficientId != null) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ProductResponse.<List<PurchasedProductResponse>>builder()
+                        .status("error")
+                        .message("Insufficient stock for product: " + productsById.get(insufficientId).getTitle())
+                        .build();
             }
 
             Orders order = new Orders();
@@ -170,23 +169,25 @@ public class PurchasedProductService {
             order.setStatus("COMPLETED");
             Orders savedOrder = orderRepository.save(order);
 
-            for (int i = 0; i < validatedItems.size(); i++) {
-                PurchaseProductRequest item = validatedItems.get(i);
-                Products product = productsToUpdate.get(i);
-                int quantity = item.getQuantity() > 0 ? item.getQuantity() : 1;
+            List<PurchasedProducts> items = new ArrayList<>();
+            for (PurchaseProductRequest item : request.getProducts()) {
+                Products product = productsById.get(item.getProductId());
 
                 PurchasedProducts purchasedProduct = new PurchasedProducts();
                 purchasedProduct.setProductId(product.getId());
                 purchasedProduct.setUserId(userId);
-                purchasedProduct.setQuantity(quantity);
+                purchasedProduct.setQuantity(item.getQuantity() > 0 ? item.getQuantity() : 1);
                 purchasedProduct.setOrderId(savedOrder.getId());
                 purchasedProduct.setPriceAtPurchase(product.getPrice());
+                items.add(purchasedProduct);
+            }
 
-                PurchasedProducts saved = purchasedProductRepository.save(purchasedProduct);
-
-                product.setQuantity(product.getQuantity() - quantity);
-                productRepository.save(product);
+            // sequence ids, so the flush sends these as one JDBC batch (and fills in createdAt)
+            List<PurchasedProducts> savedItems = purchasedProductRepository.saveAllAndFlush(items);
 
+            List<PurchasedProductResponse> purchasedList = new ArrayList<>();
+            for (PurchasedProducts saved : savedItems) {
+                Products product = productsById.get(saved.getProductId());
                 purchasedList.add(PurchasedProductResponse.builder()
                         .id(saved.getId())
                         .productId(product.getId())
@@ -194,11 +195,15 @@ public class PurchasedProductService {
                         .productDescription(product.getDescription())
                         .productPrice(product.getPrice())
                         .productUrl(product.getProductUrl())
-                        .quantity(quantity)
+                        .quantity(saved.getQuantity())
                         .purchasedAt(saved.getCreatedAt())
                         .build());
             }
 
+            salesRollupService.recordOrder(savedOrder, savedItems, productsById);
+            dashboardSnapshotService.recordPurchase();
+            catalogResponseCache.recordStockChange();
+
             log.info("Bulk purchase completed. OrderId: {}, UserId: {}, Products: {}",
                     savedOrder.getId(), userId, purchasedList.size());
 
@@ -209,6 +214,8 @@ public class PurchasedProductService {
                     .build();
         } catch (Exception e) {
             log.error("Error during bulk purchase", e);
+            // the error is reported in the body, so undo any stock already taken
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ProductResponse.<List<PurchasedProductResponse>>builder()
                     .status("error")
                     .message("Failed to purchase products: " + e.getMessage())
@@ -216,20 +223,38 @@ public class PurchasedProductService {
         }
     }
 
-    public ProductResponse<List<PurchasedProductResponse>> getPurchasedProducts(String token) {
-        try {
-            String email = jwtUtil.extractSubject(token);
-            Optional<EcommerceUsers> userOpt = userRepository.findByEmail(email);
+    /**
+     * Takes stock atomically: through the in-memory ledger for flash-sale SKUs, otherwise with a
+     * conditional UPDATE that fails instead of overselling.
+     */
+    private boolean reserveStock(Long productId, int quantity) {
+        if (stockReservationLedger.manages(productId)) {
+            return stockReservationLedger.tryReserve(productId, quantity);
+        }
+        return productRepository.decrementStock(productId, quantity) == 1;
+    }
 
-            if (userOpt.isEmpty()) {
-                return ProductResponse.<List<PurchasedProductResponse>>builder()
-                        .status("error")
-                        .message("User not found")
-                        .build();
+    /**
+     * Takes stock for a whole cart: flash-sale SKUs through the ledger, everything else in one batch of
+     * conditional UPDATEs ordered by product id. Returns the id of a product that ran out, or null.
+     */
+    private Long reserveStock(Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> batched = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            if (!stockReservationLedger.manages(entry.getKey())) {
+                batched.put(entry.getKey(), entry.getValue());
+            } else if (!stockReservationLedger.tryReserve(entry.getKey(), entry.getValue())) {
+                return entry.getKey();
             }
+        }
+        List<Long> insufficient = productRepository.decrementStockInBatch(batched);
+        return insufficient.isEmpty() ? null : insufficient.get(0);
+    }
 
+    public ProductResponse<List<PurchasedProductResponse>> getPurchasedProducts(AuthenticatedUser user) {
+        try {
             List<PurchasedProducts> purchases = purchasedProductRepository
-                    .findByUserIdOrderByCreatedAtDesc(userOpt.get().getId());
+                    .findByUserIdOrderByCreatedAtDesc(user.userId());
 
             List<PurchasedProductResponse> responseList = purchases.stream()
                     .map(purchase -> {
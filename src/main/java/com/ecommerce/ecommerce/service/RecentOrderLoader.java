@@ -0,0 +1,102 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.RecentOrderResponse;
+import com.ecommerce.ecommerce.repositories.OrderRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.PurchasedProductRepository;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the most recent orders together with their buyers and line items using a fixed
+ * number of queries: one for the orders, then one {@code IN (...)} query each for users,
+ * line items and products. Results are stitched together in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecentOrderLoader {
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final PurchasedProductRepository purchasedProductRepository;
+    private final ProductRepository productRepository;
+
+    public List<RecentOrderResponse> load(int limit) {
+        // List rather than Page: the page size is all we need, so skip the count(*) query.
+        List<Orders> orders = orderRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, limit));
+
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Orders order : orders) {
+            if (order.getUserId() != null) {
+                userIds.add(order.getUserId());
+            }
+            orderIds.add(order.getId());
+        }
+
+        Map<Long, EcommerceUsers> usersById = new HashMap<>();
+        for (EcommerceUsers user : userRepository.findAllById(userIds)) {
+            usersById.put(user.getId(), user);
+        }
+
+        List<PurchasedProducts> items = purchasedProductRepository.findByOrderIdIn(orderIds);
+        Map<Long, List<PurchasedProducts>> itemsByOrder = new HashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        for (PurchasedProducts item : items) {
+            itemsByOrder.computeIfAbsent(item.getOrderId(), id -> new ArrayList<>()).add(item);
+            productIds.add(item.getProductId());
+        }
+
+        Map<Long, String> productTitles = new HashMap<>();
+        for (Products product : productRepository.findAllById(productIds)) {
+            productTitles.put(product.getId(), product.getTitle());
+        }
+
+        List<RecentOrderResponse> result = new ArrayList<>(orders.size());
+        for (Orders order : orders) {
+            EcommerceUsers user = usersById.get(order.getUserId());
+            List<PurchasedProducts> orderItems = itemsByOrder.getOrDefault(order.getId(), List.of());
+
+            List<RecentOrderResponse.OrderItemResponse> itemResponses = new ArrayList<>(orderItems.size());
+            for (PurchasedProducts item : orderItems) {
+                itemResponses.add(RecentOrderResponse.OrderItemResponse.builder()
+                        .productId(item.getProductId())
+                        .productTitle(productTitles.getOrDefault(item.getProductId(), "Unknown"))
+                        .quantity(item.getQuantity())
+                        .priceAtPurchase(item.getPriceAtPurchase())
+                        .build());
+            }
+
+            result.add(RecentOrderResponse.builder()
+                    .orderId(order.getId())
+                    .userId(order.getUserId())
+                    .userEmail(user != null ? user.getEmail() : "Unknown")
+                    .userName(user != null ? user.getFirstName() + " " + user.getLastName() : "Unknown")
+                    .totalAmount(order.getTotalAmount())
+                    .status(order.getStatus())
+                    .itemCount(orderItems.size())
+                    .createdAt(order.getCreatedAt())
+                    .items(itemResponses)
+                    .build());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of registered emails, so logins and registrations for emails that were never registered are
+ * answered without a query.
+ * <p>
+ * Built from {@code ecommerce_users} on startup and sized for {@code auth.email-filter.false-positive-rate}
+ * at twice the current user count (at least {@code min-capacity}). Registrations on this instance are added
+ * immediately; users created elsewhere are picked up every {@code refresh-interval}, so on a multi-instance
+ * deployment a brand-new account can be reported as unknown on another instance for that long. The filter
+ * is rebuilt when it fills past its capacity, and on demand through the admin endpoint. Until the first build
+ * finishes, and when disabled, every email counts as possibly registered.
+ * <p>
+ * Meters: {@code auth.email.filter.lookups} (tagged {@code result=definite_miss|maybe}),
+ * {@code auth.email.filter.false.positives} (a maybe that the database did not find),
+ * {@code auth.email.filter.expected.false.positive.rate}, {@code auth.email.filter.insertions} and
+ * {@code auth.email.filter.memory}.
+ */
+@Slf4j
+@Component
+public class RegisteredEmailFilter {
+
+    // new users are polled with this much overlap to cover commit lag and clock skew between instances
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Counter definiteMisses;
+    private final Counter maybes;
+    private final Counter falsePositives;
+
+    private final Object rebuildLock = new Object();
+    private volatile BloomFilter filter;
+    // also receives registrations while a rebuild is reading the table
+    private volatile BloomFilter building;
+    private volatile LocalDateTime polledUpTo;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${auth.email-filter.enabled:true}") boolean enabled,
+                                 @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${auth.email-filter.min-capacity:100000}") long minCapacity) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        this.definiteMisses = Counter.builder("auth.email.filter.lookups").tag("result", "definite_miss")
+                .description("Email existence checks answered by the filter").register(meterRegistry);
+        this.maybes = Counter.builder("auth.email.filter.lookups").tag("result", "maybe")
+                .description("Email existence checks answered by the filter").register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.email.filter.false.positives")
+                .description("Emails the filter passed that were not registered").register(meterRegistry);
+        Gauge.builder("auth.email.filter.expected.false.positive.rate", this,
+                        emailFilter -> emailFilter.filter != null ? emailFilter.filter.expectedFalsePositiveRate() : 0)
+                .description("False-positive rate expected at the current number of insertions")
+                .register(meterRegistry);
+        Gauge.builder("auth.email.filter.insertions", this,
+                        emailFilter -> emailFilter.filter != null ? emailFilter.filter.insertions() : 0)
+                .description("Emails added to the filter")
+                .register(meterRegistry);
+        Gauge.builder("auth.email.filter.memory", this,
+                        emailFilter -> emailFilter.filter != null ? emailFilter.filter.sizeInBytes() : 0)
+                .baseUnit("bytes")
+                .description("Size of the filter's bit array")
+                .register(meterRegistry);
+    }
+
+    /**
+     * False only when the email is definitely not registered.
+     */
+    public boolean mightBeRegistered(String email) {
+        BloomFilter current = filter;
+        if (!enabled || current == null || email == null) {
+            return true;
+        }
+        if (current.mightContain(email)) {
+            maybes.increment();
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * Called when an email the filter passed turned out not to be registered.
+     */
+    public void recordFalsePositive() {
+        if (enabled && filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Adds a newly registered email. Call it before the user is saved: a save that then fails only leaves a
+     * false positive, while adding after the save would leave a window in which the new user is rejected.
+     */
+    public void add(String email) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(email);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public ProductResponse<Void> rebuild() {
+        if (!enabled) {
+            return ProductResponse.<Void>builder()
+                    .status("error")
+                    .message("Email filter is disabled")
+                    .build();
+        }
+        try {
+            BloomFilter built = rebuildFilter();
+            return ProductResponse.<Void>builder()
+                    .status("success")
+                    .message("Email filter rebuilt with " + built.insertions() + " emails")
+                    .build();
+        } catch (Exception e) {
+            log.error("Error rebuilding email filter", e);
+            return ProductResponse.<Void>builder()
+                    .status("error")
+                    .message("Failed to rebuild email filter: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.email-filter.refresh-interval:10s}",
+            initialDelayString = "${auth.email-filter.refresh-interval:10s}")
+    public void pollNewUsers() {
+        if (!enabled || filter == null) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            LocalDateTime now = LocalDateTime.now();
+            BloomFilter current = filter;
+            for (String email : userRepository.findEmailsCreatedSince(polledUpTo.minus(POLL_OVERLAP))) {
+                current.put(email);
+            }
+            polledUpTo = now;
+            if (current.insertions() > current.capacity()) {
+                log.info("Email filter is past its capacity of {}, rebuilding", current.capacity());
+                rebuildFilter();
+            }
+        }
+    }
+
+    private BloomFilter rebuildFilter() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            LocalDateTime startedAt = LocalDateTime.now();
+            BloomFilter next = new BloomFilter(Math.max(userRepository.count() * 2, minCapacity), falsePositiveRate);
+            building = next;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<String> emails = userRepository.streamAllEmails()) {
+                        emails.forEach(next::put);
+                    }
+                });
+                filter = next;
+                polledUpTo = startedAt;
+            } finally {
+                building = null;
+            }
+            log.info("Email filter built: {} emails, {} KiB, capacity {} in {} ms", next.insertions(),
+                    next.sizeInBytes() / 1024, next.capacity(), (System.nanoTime() - start) / 1_000_000);
+            return next;
+        }
+    }
+
+    /**
+     * Fixed-size Bloom filter over a lock-free bit array. Bit positions come from one 64-bit hash split into
+     * two halves (Kirsch–Mitzenmacher double hashing).
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final long capacity;
+        private final LongAdder insertions = new LongAdder();
+
+        BloomFilter(long capacity, double falsePositiveRate) {
+            double bits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            this.words = new AtomicLongArray((int) Math.max(1, Math.ceil(bits / 64)));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+            insertions.increment();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long insertions() {
+            return insertions.sum();
+        }
+
+        long capacity() {
+            return capacity;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashCount * (double) insertions() / bitCount), hashCount);
+        }
+
+        /**
+         * FNV-1a over the UTF-16 code units, finished with the MurmurHash3 64-bit mix.
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
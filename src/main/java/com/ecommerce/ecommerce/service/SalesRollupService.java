@@ -0,0 +1,207 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.schemas.CategorySalesRollup;
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the per-product, per-category and per-hour sales counters that the dashboard reads
+ * instead of re-aggregating {@code purchased_products} and {@code orders}.
+ * <p>
+ * Counters are bumped with upserts inside the purchase transaction, so they commit or roll back
+ * together with the order. {@link #rebuild()} recomputes everything from history.
+ * <p>
+ * One status rule holds for all three rollups, incrementally and on rebuild, matching the dashboard's
+ * original queries: orders and items count whatever the order's status, revenue only for
+ * {@code COMPLETED} orders. Line items without an order count as completed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    static final String REVENUE_STATUS = "COMPLETED";
+
+    // revenue of a line item joined to its order as "o", under the status rule above
+    private static final String LINE_REVENUE =
+            "CASE WHEN o.id IS NULL OR o.status = '" + REVENUE_STATUS + "' " +
+            "THEN COALESCE(pp.price_at_purchase, p.price, 0) * pp.quantity ELSE 0 END";
+
+    private static final String UPSERT_PRODUCT =
+            "INSERT INTO product_sales_rollup (product_id, items_sold, revenue, order_count, updated_at) " +
+            "VALUES (?, ?, ?, 1, ?) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "items_sold = product_sales_rollup.items_sold + EXCLUDED.items_sold, " +
+            "revenue = product_sales_rollup.revenue + EXCLUDED.revenue, " +
+            "order_count = product_sales_rollup.order_count + 1, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String UPSERT_CATEGORY =
+            "INSERT INTO category_sales_rollup (category_id, items_sold, revenue, order_count, updated_at) " +
+            "VALUES (?, ?, ?, 1, ?) " +
+            "ON CONFLICT (category_id) DO UPDATE SET " +
+            "items_sold = category_sales_rollup.items_sold + EXCLUDED.items_sold, " +
+            "revenue = category_sales_rollup.revenue + EXCLUDED.revenue, " +
+            "order_count = category_sales_rollup.order_count + 1, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String UPSERT_HOUR =
+            "INSERT INTO hourly_sales_rollup (bucket_start, items_sold, revenue, order_count, updated_at) " +
+            "VALUES (?, ?, ?, 1, ?) " +
+            "ON CONFLICT (bucket_start) DO UPDATE SET " +
+            "items_sold = hourly_sales_rollup.items_sold + EXCLUDED.items_sold, " +
+            "revenue = hourly_sales_rollup.revenue + EXCLUDED.revenue, " +
+            "order_count = hourly_sales_rollup.order_count + 1, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    /**
+     * Adds one order to the rollups. Must run inside the transaction that saved the order.
+     *
+     * @param productsById the purchased products, used for price fallback and category attribution
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrder(Orders order, List<PurchasedProducts> items, Map<Long, Products> productsById) {
+        Map<Long, Delta> byProduct = new LinkedHashMap<>();
+        Map<Long, Delta> byCategory = new LinkedHashMap<>();
+        long orderItems = 0;
+        boolean countsRevenue = REVENUE_STATUS.equals(order.getStatus());
+
+        for (PurchasedProducts item : items) {
+            Products product = productsById.get(item.getProductId());
+            BigDecimal unitPrice = item.getPriceAtPurchase() != null ? item.getPriceAtPurchase() : product.getPrice();
+            BigDecimal lineRevenue = countsRevenue
+                    ? unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()))
+                    : BigDecimal.ZERO;
+            long categoryId = product.getCategoryId() != null ? product.getCategoryId() : CategorySalesRollup.UNCATEGORIZED;
+
+            byProduct.computeIfAbsent(item.getProductId(), id -> new Delta()).add(item.getQuantity(), lineRevenue);
+            byCategory.computeIfAbsent(categoryId, id -> new Delta()).add(item.getQuantity(), lineRevenue);
+            orderItems += item.getQuantity();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // sorted keys keep row lock order stable across concurrent orders
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, toArgs(byProduct, now));
+        jdbcTemplate.batchUpdate(UPSERT_CATEGORY, toArgs(byCategory, now));
+
+        LocalDateTime placedAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        jdbcTemplate.update(UPSERT_HOUR,
+                Timestamp.valueOf(placedAt.truncatedTo(ChronoUnit.HOURS)),
+                orderItems,
+                countsRevenue ? order.getTotalAmount() : BigDecimal.ZERO,
+                now);
+    }
+
+    /**
+     * Recomputes every rollup from {@code purchased_products} and {@code orders}. The rollup tables are
+     * locked for the duration, so purchases committing meanwhile wait and are then counted exactly once.
+     */
+    public ProductResponse<Void> rebuild() {
+        try {
+            long started = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> rebuildInTransaction());
+            log.info("Sales rollups rebuilt in {} ms", System.currentTimeMillis() - started);
+
+            return ProductResponse.<Void>builder()
+                    .status("success")
+                    .message("Sales rollups rebuilt successfully")
+                    .build();
+        } catch (Exception e) {
+            log.error("Error rebuilding sales rollups", e);
+            return ProductResponse.<Void>builder()
+                    .status("error")
+                    .message("Failed to rebuild sales rollups: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Boolean rollupsEmpty = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM hourly_sales_rollup) AND EXISTS (SELECT 1 FROM orders)", Boolean.class);
+        if (Boolean.TRUE.equals(rollupsEmpty)) {
+            log.info("Sales rollups are empty but orders exist, backfilling from history");
+            rebuild();
+        }
+    }
+
+    private void rebuildInTransaction() {
+        jdbcTemplate.execute("LOCK TABLE product_sales_rollup, category_sales_rollup, hourly_sales_rollup IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM product_sales_rollup");
+        jdbcTemplate.update("DELETE FROM category_sales_rollup");
+        jdbcTemplate.update("DELETE FROM hourly_sales_rollup");
+
+        jdbcTemplate.update(
+                "INSERT INTO product_sales_rollup (product_id, items_sold, revenue, order_count, updated_at) " +
+                "SELECT pp.product_id, SUM(pp.quantity), SUM(" + LINE_REVENUE + "), " +
+                "COUNT(DISTINCT pp.order_id), now() " +
+                "FROM purchased_products pp LEFT JOIN products p ON p.id = pp.product_id " +
+                "LEFT JOIN orders o ON o.id = pp.order_id " +
+                "GROUP BY pp.product_id");
+
+        jdbcTemplate.update(
+                "INSERT INTO category_sales_rollup (category_id, items_sold, revenue, order_count, updated_at) " +
+                "SELECT COALESCE(p.category_id, " + CategorySalesRollup.UNCATEGORIZED + ") AS category_id, SUM(pp.quantity), " +
+                "SUM(" + LINE_REVENUE + "), COUNT(DISTINCT pp.order_id), now() " +
+                "FROM purchased_products pp LEFT JOIN products p ON p.id = pp.product_id " +
+                "LEFT JOIN orders o ON o.id = pp.order_id " +
+                "GROUP BY 1");
+
+        jdbcTemplate.update(
+                "INSERT INTO hourly_sales_rollup (bucket_start, items_sold, revenue, order_count, updated_at) " +
+                "SELECT date_trunc('hour', o.created_at), COALESCE(SUM(i.items), 0), " +
+                "SUM(CASE WHEN o.status = '" + REVENUE_STATUS + "' THEN o.total_amount ELSE 0 END), COUNT(*), now() " +
+                "FROM orders o " +
+                "LEFT JOIN (SELECT order_id, SUM(quantity) AS items FROM purchased_products GROUP BY order_id) i " +
+                "ON i.order_id = o.id " +
+                "GROUP BY date_trunc('hour', o.created_at)");
+    }
+
+    private static List<Object[]> toArgs(Map<Long, Delta> deltas, Timestamp now) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> args.add(new Object[]{entry.getKey(), entry.getValue().items, entry.getValue().revenue, now}));
+        return args;
+    }
+
+    private static final class Delta {
+        private long items;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(int quantity, BigDecimal lineRevenue) {
+            items += quantity;
+            revenue = revenue.add(lineRevenue);
+        }
+    }
+}
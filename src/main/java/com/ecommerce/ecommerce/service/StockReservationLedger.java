@@ -0,0 +1,236 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock ledger for flash-sale SKUs (listed in {@code stock.ledger.product-ids}).
+ * <p>
+ * Reservations are a CAS on an in-memory counter, so buyers of one hot product never queue on its row lock.
+ * Committed reservations are written back to the database by {@link #flush()} as one decrement per product.
+ * Loading, flushing and resyncing a product is serialized through a fixed set of lock stripes.
+ * <p>
+ * The ledger assumes it is the only writer of stock for the SKUs it manages, i.e. a single application
+ * instance. Decrements committed since the last flush are lost if the process dies.
+ */
+@Slf4j
+@Component
+public class StockReservationLedger {
+
+    private static final int STRIPES = 64;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogResponseCache catalogResponseCache;
+    private final Set<Long> managedProductIds;
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public StockReservationLedger(ProductRepository productRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  CatalogResponseCache catalogResponseCache,
+                                  @Value("${stock.ledger.product-ids:}") Set<Long> managedProductIds) {
+        this.productRepository = productRepository;
+        this.catalogResponseCache = catalogResponseCache;
+        // write-backs may run from afterCommit callbacks, so they always need their own transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.managedProductIds = Set.copyOf(managedProductIds);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean manages(Long productId) {
+        return managedProductIds.contains(productId);
+    }
+
+    /**
+     * Reserves {@code quantity} units. Inside a transaction the reservation is released again if the
+     * transaction rolls back, and only becomes a pending database decrement once it commits.
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+        Slot slot = slotFor(productId);
+        if (slot == null) {
+            return false;
+        }
+
+        // counted as in flight before touching available, so a concurrent resync never over-counts stock
+        slot.inFlight.addAndGet(quantity);
+        int available;
+        do {
+            available = slot.available.get();
+            if (available < quantity) {
+                slot.inFlight.addAndGet(-quantity);
+                return false;
+            }
+        } while (!slot.available.compareAndSet(available, available - quantity));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    settle(slot, quantity, status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            settle(slot, quantity, true);
+        }
+        return true;
+    }
+
+    /**
+     * Writes pending decrements back and reloads the product's stock from the database.
+     * Call when stock is changed outside the ledger, e.g. a restock; inside a transaction this happens
+     * after commit so the reload sees the new value.
+     */
+    public void invalidate(Long productId) {
+        if (!manages(productId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resync(productId);
+                }
+            });
+        } else {
+            resync(productId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        for (Long productId : slots.keySet()) {
+            ReentrantLock lock = stripeFor(productId);
+            lock.lock();
+            try {
+                Slot slot = slots.get(productId);
+                if (slot != null) {
+                    writeBack(productId, slot);
+                }
+            } catch (RuntimeException e) {
+                // the units stay pending; one product failing must not hold back the others
+                log.error("Could not write back sold stock for product {}, retrying on the next flush", productId, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    int availableFor(Long productId) {
+        Slot slot = slots.get(productId);
+        return slot != null ? slot.available.get() : -1;
+    }
+
+    private Slot slotFor(Long productId) {
+        Slot slot = slots.get(productId);
+        if (slot != null) {
+            return slot;
+        }
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            slot = slots.get(productId);
+            if (slot == null) {
+                Integer stock = productRepository.findQuantityById(productId).orElse(null);
+                if (stock == null) {
+                    return null;
+                }
+                slot = new Slot(stock);
+                slots.put(productId, slot);
+            }
+            return slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resync(Long productId) {
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            Slot slot = slots.get(productId);
+            if (slot == null) {
+                return;
+            }
+            writeBack(productId, slot);
+            Integer stock = productRepository.findQuantityById(productId).orElse(null);
+            if (stock == null) {
+                slots.remove(productId);
+                return;
+            }
+            // read order matches settle(): any reservation racing with this is counted at least once
+            int inFlight = slot.inFlight.get();
+            int pending = slot.pending.get();
+            slot.available.set(Math.max(stock - inFlight - pending, 0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds the product's stripe; on failure the units are pending again, so nothing sold is lost
+    private void writeBack(Long productId, Slot slot) {
+        int quantity = slot.pending.getAndSet(0);
+        if (quantity == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (productRepository.decrementStock(productId, quantity) == 0) {
+                    log.warn("Stock for product {} changed outside the ledger, clamping {} sold units at zero",
+                            productId, quantity);
+                    productRepository.drainStock(productId, quantity);
+                }
+                catalogResponseCache.recordStockChange();
+            });
+        } catch (RuntimeException e) {
+            slot.pending.addAndGet(quantity);
+            throw e;
+        }
+    }
+
+    private static void settle(Slot slot, int quantity, boolean committed) {
+        if (committed) {
+            slot.pending.addAndGet(quantity);
+        } else {
+            slot.available.addAndGet(quantity);
+        }
+        slot.inFlight.addAndGet(-quantity);
+    }
+
+    private ReentrantLock stripeFor(Long productId) {
+        return stripes[Math.floorMod(productId.hashCode(), STRIPES)];
+    }
+
+    private static final class Slot {
+        private final AtomicInteger available;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Slot(int stock) {
+            this.available = new AtomicInteger(stock);
+        }
+    }
+}
@@ -1,52 +1,87 @@
 package com.ecommerce.ecommerce.util;
 
+import com.ecommerce.ecommerce.models.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
 
+/**
+ * Issues and verifies HS256 tokens.
+ * <p>
+ * The signing key and parser are built once; both are immutable and shared by all requests. Verified
+ * claims are kept in a bounded cache keyed by the token's SHA-256 digest, so a client sending the same
+ * token on every request pays for the signature check once. An entry expires with its token's {@code exp},
+ * and a hit is re-checked against the clock, so an expired token is never accepted from the cache. Only
+ * valid tokens are cached. Hit rate is published as the {@code cache.*} meters tagged {@code cache=jwt.claims}.
+ */
 @Slf4j
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret.key}")
-    private String secretKey;
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String ADMIN_CLAIM = "isAdmin";
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expiration;
+    private final Cache<String, Claims> verifiedClaims;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    public JwtUtil(@Value("${jwt.secret.key}") String secretKey,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                   MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.expiration = expiration;
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> remainingLifetime(claims)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.claims");
     }
 
-    public String generateToken(String subject) {
+    public String generateToken(String subject, Long userId, boolean admin) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
                 .setSubject(subject)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ADMIN_CLAIM, admin)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            extractClaims(token);
             return true;
         } catch (ExpiredJwtException e) {
             log.warn("JWT token has expired");
@@ -64,6 +99,17 @@ public class JwtUtil {
         return extractClaims(token).getSubject();
     }
 
+    /**
+     * The user the token was issued to. Tokens issued before the {@code userId} claim was added carry only
+     * the email, so {@link AuthenticatedUser#userId()} is null for them.
+     */
+    public AuthenticatedUser extractUser(String token) {
+        Claims claims = extractClaims(token);
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return new AuthenticatedUser(userId != null ? userId.longValue() : null, claims.getSubject(),
+                Boolean.TRUE.equals(claims.get(ADMIN_CLAIM, Boolean.class)));
+    }
+
     public Date extractExpiration(String token) {
         return extractClaims(token).getExpiration();
     }
@@ -72,11 +118,43 @@ public class JwtUtil {
         return extractExpiration(token).before(new Date());
     }
 
+    /**
+     * Verified claims of the token, from the cache when it was verified before. Throws like
+     * {@link JwtParser#parseClaimsJws} when the token is invalid or expired. The returned claims are shared
+     * between requests and must not be modified.
+     */
     private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        verifiedClaims.put(digest, claims);
+        return claims;
+    }
+
+    private Duration remainingLifetime(Claims claims) {
+        // tokens without exp are never issued here; cache them no longer than a fresh token would live
+        long remainingMillis = claims.getExpiration() != null
+                ? claims.getExpiration().getTime() - System.currentTimeMillis()
+                : expiration;
+        return Duration.ofMillis(Math.max(remainingMillis, 0));
+    }
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,259 @@
+package com.ecommerce.ecommerce;
+
+import com.ecommerce.ecommerce.util.JwtUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test of {@code GET /api/purchased-products} over HTTP against the whole application on an embedded
+ * PostgreSQL, reached through a proxy that delays every response from the database by 10 ms, roughly the
+ * round trip to a hosted database. Closed-loop clients, 200 and then 1000, each send their next request as
+ * soon as the previous one is answered; 5 s of warm-up, then 15 s measured. Three modes: platform threads,
+ * platform threads with the database bulkhead, and the {@code virtual-threads} profile, which needs a Java 21
+ * runtime and is skipped on older ones. Not part of the normal build; run with {@code mvn test -Pbenchmark}.
+ * Throughput, p50 and p99 latency, 503s and failures are printed, not asserted.
+ */
+@Tag("benchmark")
+class RequestConcurrencyBenchmarkTest {
+
+    private static final Duration DATABASE_LATENCY = Duration.ofMillis(10);
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASURED = Duration.ofSeconds(15);
+    private static final int[] CLIENTS = {200, 1000};
+    private static final int PURCHASES = 20;
+
+    private static EmbeddedPostgres postgres;
+    private static LatencyProxy proxy;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        proxy = new LatencyProxy(postgres.getPort(), DATABASE_LATENCY);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        proxy.close();
+        postgres.close();
+    }
+
+    @Test
+    void platformAgainstVirtualThreads() throws Exception {
+        load("platform", Map.of());
+        load("platform + bulkhead", Map.of("db.bulkhead.enabled", "true"));
+        if (Runtime.version().feature() >= 21) {
+            load("virtual + bulkhead", Map.of("spring.profiles.active", "benchmark,virtual-threads"));
+        } else {
+            System.out.printf("Load: %-20s skipped, needs Java 21 (running %s)%n", "virtual + bulkhead",
+                    Runtime.version());
+        }
+    }
+
+    private void load(String mode, Map<String, Object> modeProperties) throws Exception {
+        Map<String, Object> properties = new HashMap<>(Map.of(
+                "spring.profiles.active", "benchmark",
+                "server.port", "0",
+                "spring.datasource.url", "jdbc:postgresql://127.0.0.1:" + proxy.port() + "/postgres",
+                "spring.datasource.username", "postgres",
+                "spring.jpa.hibernate.ddl-auto", "update",
+                "jwt.secret.key", "0123456789abcdef0123456789abcdef",
+                "jwt.expiration", "3600000",
+                "cloudinary.cloud-name", "demo",
+                "cloudinary.api-key", "key",
+                "cloudinary.api-secret", "secret"));
+        // failed requests are counted; their stack traces would drown the numbers
+        properties.put("logging.level.root", "OFF");
+        properties.putAll(modeProperties);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EcommerceApplication.class)
+                .properties(properties)
+                .run()) {
+            String token = seed(context);
+            URI uri = URI.create("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port") +
+                    "/api/purchased-products");
+            for (int clients : CLIENTS) {
+                run(mode, clients, HttpRequest.newBuilder(uri)
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(30))
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * One buyer with {@link #PURCHASES} purchases, created once and shared by all modes. Returns the buyer's
+     * token.
+     */
+    private static String seed(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.update("INSERT INTO ecommerce_users (id, email, password, first_name, last_name, " +
+                "created_at, updated_at) VALUES (1, 'buyer@example.com', 'hash', 'Load', 'Test', now(), now()) " +
+                "ON CONFLICT DO NOTHING");
+        for (int i = 1; i <= PURCHASES; i++) {
+            jdbcTemplate.update("INSERT INTO products (id, title, product_url, price, quantity, created_at, " +
+                    "updated_at) VALUES (?, ?, 'http://cdn.test/p.png', 10, 100, now(), now()) ON CONFLICT DO NOTHING",
+                    i, "Product " + i);
+            jdbcTemplate.update("INSERT INTO purchased_products (id, product_id, user_id, quantity, " +
+                    "price_at_purchase, created_at, updated_at) VALUES (?, ?, 1, 1, 10, now(), now()) " +
+                    "ON CONFLICT DO NOTHING", i, i);
+        }
+        return context.getBean(JwtUtil.class).generateToken("buyer@example.com", 1L, false);
+    }
+
+    private void run(String mode, int clients, HttpRequest request) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        long measureFrom = System.nanoTime() + WARM_UP.toNanos();
+        long measureUntil = measureFrom + MEASURED.toNanos();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread client = new Thread(() -> {
+                try {
+                    long sent;
+                    while ((sent = System.nanoTime()) < measureUntil) {
+                        int status;
+                        try {
+                            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = -1;
+                        }
+                        long answered = System.nanoTime();
+                        if (sent < measureFrom || answered > measureUntil) {
+                            continue;
+                        }
+                        if (status == 200) {
+                            latencies.add(TimeUnit.NANOSECONDS.toMillis(answered - sent));
+                        } else if (status == 503) {
+                            rejected.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+        assertThat(done.await(WARM_UP.plus(MEASURED).plusMinutes(1).toSeconds(), TimeUnit.SECONDS)).isTrue();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        assertThat(sorted).isNotEmpty();
+        System.out.printf("Load: %-20s %,5d clients %,7.1f req/s, p50 %,6d ms, p99 %,6d ms, %,5d 503s, %,5d failed%n",
+                mode, clients, sorted.size() / (double) MEASURED.toSeconds(), percentile(sorted, 0.50),
+                percentile(sorted, 0.99), rejected.get(), failed.get());
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    /**
+     * Forwards TCP connections to the database, holding each chunk the database sends back for
+     * {@code latency}.
+     */
+    private static final class LatencyProxy implements AutoCloseable {
+
+        private final ServerSocket server;
+        private final int targetPort;
+        private final long latencyMillis;
+
+        LatencyProxy(int targetPort, Duration latency) throws IOException {
+            this.server = new ServerSocket();
+            this.server.bind(new InetSocketAddress("127.0.0.1", 0));
+            this.targetPort = targetPort;
+            this.latencyMillis = latency.toMillis();
+            Thread acceptor = new Thread(this::accept, "latency-proxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    Socket database = new Socket("127.0.0.1", targetPort);
+                    client.setTcpNoDelay(true);
+                    database.setTcpNoDelay(true);
+                    pump(client, database, 0);
+                    pump(database, client, latencyMillis);
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+
+        private static void pump(Socket from, Socket to, long delayMillis) {
+            Thread pump = new Thread(() -> {
+                byte[] buffer = new byte[16 * 1024];
+                try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        if (delayMillis > 0) {
+                            Thread.sleep(delayMillis);
+                        }
+                        out.write(buffer, 0, read);
+                        out.flush();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // either side closed the connection
+                } finally {
+                    closeQuietly(from);
+                    closeQuietly(to);
+                }
+            }, "latency-proxy-pump");
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        private static void closeQuietly(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.ecommerce.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseBulkheadFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DatabaseBulkheadFilter filter =
+            new DatabaseBulkheadFilter(1, Duration.ofMillis(10), JsonMapper.builder().build(), meterRegistry);
+
+    @Test
+    void aSynchronousRequestReturnsItsPermitWhenItReturns() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void anAsyncRequestHoldsItsPermitUntilItCompletes() throws Exception {
+        MockHttpServletRequest exporting = request();
+        filter.doFilter(exporting, new MockHttpServletResponse(),
+                (request, response) -> request.startAsync(request, response));
+
+        // the export is still streaming after the first dispatch returned
+        assertThat(availablePermits()).isZero();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request(), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        exporting.getAsyncContext().complete();
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/orders/export");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("db.bulkhead.available").gauge().value();
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.ecommerce.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchMigrationTest {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final ProductSearchMigration migration = new ProductSearchMigration(jdbcTemplate, 3);
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void products() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS products_search_vector()");
+        jdbcTemplate.execute(
+                "CREATE TABLE products (id bigint PRIMARY KEY, title varchar(120), description varchar(255))");
+        for (int i = 1; i <= 10; i++) {
+            jdbcTemplate.update("INSERT INTO products (id, title, description) VALUES (?, ?, ?)",
+                    i, "Samsung phone " + i, i % 2 == 0 ? null : "Great device");
+        }
+    }
+
+    @Test
+    void existingRowsAreBackfilledAndNewWritesKeptCurrent() {
+        migration.migrate();
+
+        assertThat(matches("samsung:* & pho:*")).isEqualTo(10);
+        assertThat(matches("great:*")).isEqualTo(5);
+        assertThat(indexIsValid()).isTrue();
+
+        jdbcTemplate.update("INSERT INTO products (id, title) VALUES (11, 'Sony camera')");
+        jdbcTemplate.update("UPDATE products SET title = 'Dell laptop' WHERE id = 1");
+        assertThat(matches("sony:*")).isEqualTo(1);
+        assertThat(matches("dell:*")).isEqualTo(1);
+        assertThat(matches("samsung:*")).isEqualTo(9);
+
+        // a second run changes nothing
+        migration.migrate();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_trigger WHERE tgname = 'products_search_vector'", Integer.class)).isOne();
+        assertThat(matches("samsung:*")).isEqualTo(9);
+    }
+
+    @Test
+    void aGeneratedColumnFromTheEarlierVersionIsKept() {
+        jdbcTemplate.execute("ALTER TABLE products ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (" +
+                "to_tsvector('simple', coalesce(title, ''))) STORED");
+
+        migration.migrate();
+
+        assertThat(matches("samsung:*")).isEqualTo(10);
+        assertThat(indexIsValid()).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_trigger WHERE tgname = 'products_search_vector'", Integer.class)).isZero();
+    }
+
+    private int matches(String tsQuery) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM products WHERE search_vector @@ to_tsquery('simple', ?)", Integer.class, tsQuery);
+    }
+
+    private boolean indexIsValid() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "WHERE c.relname = 'idx_products_search'", Boolean.class));
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecommerce.ecommerce.repositories;
+
+import com.ecommerce.ecommerce.schemas.Products;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The conditional stock UPDATEs against a real PostgreSQL, hammered by 200 concurrent buyers: each buyer
+ * takes stock in its own transaction, as the purchase path does, and a sold-out buyer rolls back. The
+ * second-level cache is mocked; only its lock and unlock calls are checked.
+ */
+class ProductRepositoryCustomImplTest {
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 50;
+
+    private static EmbeddedPostgres postgres;
+    private static HikariDataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final EntityDataAccess cacheAccess = mock(EntityDataAccess.class);
+    private final ProductRepositoryCustomImpl repository = repository(cacheAccess);
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        dataSource.setUsername("postgres");
+        dataSource.setMaximumPoolSize(20);
+        new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE products (id bigint PRIMARY KEY, quantity int NOT NULL, updated_at timestamp)");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @BeforeEach
+    void stock() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("INSERT INTO products (id, quantity) VALUES (1, ?), (2, ?)", STOCK, STOCK);
+    }
+
+    @Test
+    void concurrentSingleItemPurchasesNeverOversell() throws Exception {
+        int sold = hammer(buyer -> repository.decrementStock(1L, 1) == 1);
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(quantity(1L)).isZero();
+        // every buyer soft-locked the cached row and released it when its transaction ended
+        verify(cacheAccess, times(BUYERS)).lockItem(any(), any(), any());
+        verify(cacheAccess, times(BUYERS)).unlockItem(any(), any(), any());
+    }
+
+    @Test
+    void concurrentCartPurchasesNeverOversellOrDeadlock() throws Exception {
+        int sold = hammer(buyer -> {
+            // carts list their products in different orders; the batch locks rows in id order regardless
+            Map<Long, Integer> cart = new LinkedHashMap<>();
+            if (buyer % 2 == 0) {
+                cart.put(1L, 1);
+                cart.put(2L, 1);
+            } else {
+                cart.put(2L, 1);
+                cart.put(1L, 1);
+            }
+            return repository.decrementStockInBatch(cart).isEmpty();
+        });
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(quantity(1L)).isZero();
+        assertThat(quantity(2L)).isZero();
+        verify(cacheAccess, times(2 * BUYERS)).lockItem(any(), any(), any());
+        verify(cacheAccess, times(2 * BUYERS)).unlockItem(any(), any(), any());
+    }
+
+    /**
+     * Runs every buyer at once, each in its own transaction, rolling back when {@code purchase} reports
+     * insufficient stock. Returns how many purchases committed; any exception fails the test.
+     */
+    private int hammer(Purchase purchase) throws Exception {
+        AtomicInteger committed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            int buyer = i;
+            buyers.add(pool.submit(() -> {
+                start.await();
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (purchase.take(buyer)) {
+                        committed.incrementAndGet();
+                    } else {
+                        status.setRollbackOnly();
+                    }
+                });
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return committed.get();
+    }
+
+    private static ProductRepositoryCustomImpl repository(EntityDataAccess cacheAccess) {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(sessionFactory.getMappingMetamodel().getEntityDescriptor(Products.class).getCacheAccessStrategy())
+                .thenReturn(cacheAccess);
+        when(cacheAccess.generateCacheKey(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class))
+                .thenReturn(mock(SharedSessionContractImplementor.class));
+        return new ProductRepositoryCustomImpl(new JdbcTemplate(dataSource), entityManagerFactory, entityManager);
+    }
+
+    private int quantity(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    @FunctionalInterface
+    private interface Purchase {
+        boolean take(int buyer);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CatalogResponseCacheTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogResponseCache cache = new CatalogResponseCache(productRepository,
+            JsonMapper.builder().build(), Duration.ofHours(1), 1024 * 1024);
+
+    @Test
+    void listRevalidationNeedsNoQueryAndFollowsWrites() {
+        ResponseEntity<byte[]> first = list(null);
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(list(etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        cache.recordStockChange();
+        ResponseEntity<byte[]> afterPurchase = list(etag);
+        assertThat(afterPurchase.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        cache.invalidate(CatalogResponseCache.PRODUCTS);
+        assertThat(list(afterPurchase.getHeaders().getETag()).getStatusCode()).isEqualTo(HttpStatus.OK);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void wildcardMatchesOnlyAnExistingResource() {
+        when(productRepository.findProductVersion(1L)).thenReturn(Optional.of("1700000000:1700000000"));
+        when(productRepository.findProductVersion(2L)).thenReturn(Optional.empty());
+
+        assertThat(product(1L, "*").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(product(2L, "*").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(list("*").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    private ResponseEntity<byte[]> list(String ifNoneMatch) {
+        return cache.respond(CatalogResponseCache.PRODUCTS, "page=0", cache.catalogVersion(), ifNoneMatch,
+                success(), HttpStatus.OK);
+    }
+
+    private ResponseEntity<byte[]> product(Long id, String ifNoneMatch) {
+        Supplier<ProductResponse<?>> render = id == 1L ? success() : () -> ProductResponse.builder()
+                .status("error")
+                .message("Product not found")
+                .build();
+        return cache.respond(CatalogResponseCache.PRODUCTS, "id=" + id, cache.productVersion(id), ifNoneMatch,
+                render, HttpStatus.BAD_REQUEST);
+    }
+
+    private static Supplier<ProductResponse<?>> success() {
+        return () -> ProductResponse.builder()
+                .status("success")
+                .message("Products fetched successfully")
+                .build();
+    }
+}
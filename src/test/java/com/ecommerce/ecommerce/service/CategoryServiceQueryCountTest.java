@@ -0,0 +1,80 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.CategoryResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Category;
+import com.ecommerce.ecommerce.schemas.Products;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts the statements {@link CategoryService#getAllCategories()} prepares against a real PostgreSQL, so a
+ * per-category product count coming back shows up as extra queries.
+ */
+class CategoryServiceQueryCountTest {
+
+    private static final int PRODUCTS_PER_CATEGORY = 3;
+
+    private static EmbeddedJpa jpa;
+    private static CategoryService categoryService;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        jpa = EmbeddedJpa.start();
+        categoryService = new CategoryService(
+                jpa.repository(CategoryRepository.class),
+                jpa.repository(ProductRepository.class),
+                mock(CategoryNameCache.class),
+                mock(CatalogResponseCache.class));
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        jpa.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void queryCountDoesNotDependOnCategoryCount(int categories) {
+        seed(categories);
+
+        EmbeddedJpa.Counted<ProductResponse<List<CategoryResponse>>> listing =
+                jpa.countStatements(categoryService::getAllCategories);
+
+        assertThat(listing.result().getStatus()).isEqualTo("success");
+        assertThat(listing.result().getData()).hasSize(categories)
+                .allSatisfy(category -> assertThat(category.getProductCount()).isEqualTo(PRODUCTS_PER_CATEGORY));
+        assertThat(listing.statements()).isEqualTo(2);
+    }
+
+    private static void seed(int categories) {
+        jpa.jdbcTemplate().update("DELETE FROM products");
+        jpa.jdbcTemplate().update("DELETE FROM categories");
+        jpa.persist(entityManager -> {
+            for (int i = 0; i < categories; i++) {
+                Category category = new Category();
+                category.setName("Category " + i);
+                entityManager.persist(category);
+                for (int j = 0; j < PRODUCTS_PER_CATEGORY; j++) {
+                    Products product = new Products();
+                    product.setTitle("Product " + i + "-" + j);
+                    product.setProductUrl("http://cdn.test/p" + i + "-" + j + ".png");
+                    product.setPrice(BigDecimal.TEN);
+                    product.setQuantity(100);
+                    product.setCategoryId(category.getId());
+                    entityManager.persist(product);
+                }
+            }
+        });
+    }
+}
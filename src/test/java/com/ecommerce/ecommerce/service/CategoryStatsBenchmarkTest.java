@@ -0,0 +1,109 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Category;
+import com.ecommerce.ecommerce.schemas.Products;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dashboard category stats on 500 categories, 100k products and 300k purchased items in a real PostgreSQL:
+ * the earlier findAll, per-product sales map and {@code findByCategoryId} per category, summed in Java, against
+ * the single grouped {@link CategoryRepository#findCategoryStats()} over the sales rollup. Not part of the
+ * normal build; run with {@code mvn test -Pbenchmark}. Timings and statement counts are printed; only that
+ * both paths report the same units sold is asserted.
+ */
+@Tag("benchmark")
+class CategoryStatsBenchmarkTest {
+
+    private static final int CATEGORIES = 500;
+    private static final int PRODUCTS = 100_000;
+    private static final int PURCHASED_ITEMS = 300_000;
+    private static final int ROUNDS = 3;
+
+    private static EmbeddedJpa jpa;
+    private static CategoryRepository categoryRepository;
+    private static ProductRepository productRepository;
+
+    @BeforeAll
+    static void seed() throws Exception {
+        jpa = EmbeddedJpa.start();
+        categoryRepository = jpa.repository(CategoryRepository.class);
+        productRepository = jpa.repository(ProductRepository.class);
+
+        JdbcTemplate jdbcTemplate = jpa.jdbcTemplate();
+        jdbcTemplate.update("INSERT INTO categories (id, name, created_at, updated_at) " +
+                "SELECT c, 'Category ' || c, now(), now() FROM generate_series(1, ?) c", CATEGORIES);
+        jdbcTemplate.update("INSERT INTO products " +
+                "(id, title, product_url, price, quantity, category_id, created_at, updated_at) " +
+                "SELECT p, 'Product ' || p, 'http://cdn.test/p' || p || '.png', 10 + p % 90, 100, " +
+                "1 + p % ?, now(), now() FROM generate_series(1, ?) p", CATEGORIES, PRODUCTS);
+        jdbcTemplate.update("INSERT INTO orders (id, total_amount, status, created_at, updated_at) " +
+                "SELECT o, 0, 'COMPLETED', now(), now() FROM generate_series(1, ?) o", PURCHASED_ITEMS / 3);
+        jdbcTemplate.update("INSERT INTO purchased_products " +
+                "(id, product_id, order_id, quantity, price_at_purchase, created_at, updated_at) " +
+                "SELECT i, 1 + (i::bigint * 7919) % ?, 1 + (i - 1) / 3, 1 + i % 3, 10 + i % 90, now(), now() " +
+                "FROM generate_series(1, ?) i", PRODUCTS, PURCHASED_ITEMS);
+        jdbcTemplate.execute("ANALYZE");
+        new SalesRollupService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()))).rebuild();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        jpa.close();
+    }
+
+    @Test
+    void perCategoryLoadsAgainstOneGroupedQuery() {
+        long soldByLoop = 0;
+        long soldByQuery = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            soldByLoop = time("findByCategoryId loop", round, CategoryStatsBenchmarkTest::perCategoryLoads);
+            soldByQuery = time("grouped query", round, () -> categoryRepository.findCategoryStats().stream()
+                    .mapToLong(CategoryRepository.CategoryStatsRow::getTotalSold)
+                    .sum());
+        }
+        assertThat(soldByQuery).isEqualTo(soldByLoop).isPositive();
+    }
+
+    /**
+     * What getCategoryStats did before the grouped query, reduced to the units sold.
+     */
+    private static long perCategoryLoads() {
+        Map<Long, Long> soldByProduct = new HashMap<>();
+        jpa.jdbcTemplate().query("SELECT product_id, SUM(quantity) FROM purchased_products GROUP BY product_id",
+                (RowCallbackHandler) row -> soldByProduct.put(row.getLong(1), row.getLong(2)));
+        long sold = 0;
+        List<Category> categories = categoryRepository.findAll();
+        for (Category category : categories) {
+            for (Products product : productRepository.findByCategoryId(category.getId())) {
+                sold += soldByProduct.getOrDefault(product.getId(), 0L);
+            }
+        }
+        return sold;
+    }
+
+    private static long time(String path, int round, Supplier<Long> stats) {
+        long began = System.nanoTime();
+        EmbeddedJpa.Counted<Long> counted = jpa.countStatements(stats);
+        long millis = (System.nanoTime() - began) / 1_000_000;
+        System.out.printf("Category stats: %-22s round %d %,7d ms, %,4d JPA statements%n",
+                path, round, millis, counted.statements());
+        return counted.result();
+    }
+}
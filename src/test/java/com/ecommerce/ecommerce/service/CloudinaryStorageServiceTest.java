@@ -0,0 +1,134 @@
+package com.ecommerce.ecommerce.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Uploads against a local stub of the Cloudinary upload API.
+ */
+class CloudinaryStorageServiceTest {
+
+    private static final String UPLOAD_RESULT =
+            "{\"public_id\":\"ecommerce/products/x\",\"secure_url\":\"https://res.cloudinary.com/demo/image/upload/v1/x.png\"}";
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> contentRanges = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private Cloudinary cloudinary;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try (InputStream body = exchange.getRequestBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+                if (exchange.getRequestHeaders().containsKey("Content-Range")) {
+                    contentRanges.add(exchange.getRequestHeaders().getFirst("Content-Range"));
+                }
+                Thread.sleep(50);
+                byte[] response = UPLOAD_RESULT.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", "demo",
+                "api_key", "key",
+                "api_secret", "secret",
+                "upload_prefix", "http://127.0.0.1:" + server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void parallelUploadsAreStreamedAndBounded() throws Exception {
+        CloudinaryStorageService storage = new CloudinaryStorageService(cloudinary, "ecommerce/products",
+                DataSize.ofMegabytes(20), DataSize.ofMegabytes(6), 3, Duration.ofSeconds(30));
+        List<MultipartFile> files = new ArrayList<>();
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            MultipartFile file = spy(new MockMultipartFile("image", "p" + i + ".png", "image/png", new byte[256 * 1024]));
+            files.add(file);
+            uploads.add(CompletableFuture.supplyAsync(() -> storage.storeImage(file)));
+        }
+
+        for (CompletableFuture<String> upload : uploads) {
+            assertThat(upload.get(30, TimeUnit.SECONDS)).startsWith("https://res.cloudinary.com/");
+        }
+        assertThat(maxInFlight.get()).isBetween(1, 3);
+        for (MultipartFile file : files) {
+            verify(file, never()).getBytes();
+        }
+    }
+
+    @Test
+    void remoteImportsShareTheUploadLimit() throws Exception {
+        CloudinaryStorageService storage = new CloudinaryStorageService(cloudinary, "ecommerce/products",
+                DataSize.ofMegabytes(20), DataSize.ofMegabytes(6), 2, Duration.ofSeconds(30));
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String sourceUrl = "https://images.example.com/p" + i + ".png";
+            uploads.add(i % 2 == 0
+                    ? CompletableFuture.supplyAsync(() -> storage.storeRemoteImage(sourceUrl))
+                    : CompletableFuture.supplyAsync(() -> storage.storeImage(
+                            new MockMultipartFile("image", "p.png", "image/png", new byte[1024]))));
+        }
+
+        for (CompletableFuture<String> upload : uploads) {
+            assertThat(upload.get(30, TimeUnit.SECONDS)).startsWith("https://res.cloudinary.com/");
+        }
+        assertThat(maxInFlight.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void filesAboveTheChunkSizeAreUploadedInChunks() throws Exception {
+        CloudinaryStorageService storage = new CloudinaryStorageService(cloudinary, "ecommerce/products",
+                DataSize.ofKilobytes(64), DataSize.ofKilobytes(64), 3, Duration.ofSeconds(30));
+        MultipartFile file = spy(new MockMultipartFile("image", "big.png", "image/png", new byte[200 * 1024]));
+
+        assertThat(storage.storeImage(file)).startsWith("https://res.cloudinary.com/");
+
+        assertThat(contentRanges).containsExactly(
+                "bytes 0-65535/204800", "bytes 65536-131071/204800",
+                "bytes 131072-196607/204800", "bytes 196608-204799/204800");
+        verify(file, never()).getBytes();
+    }
+}
@@ -0,0 +1,215 @@
+package com.ecommerce.ecommerce.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap used while 20 admins upload a 20 MB image each at once, to a local stub of the Cloudinary upload API:
+ * the earlier {@code getBytes()} upload against {@link CloudinaryStorageService#storeImage}, which streams
+ * from disk. The uploads are disk-backed, as with {@code spring.servlet.multipart.file-size-threshold=0B}, and
+ * the service may run all 20 at once, so only the buffering differs. Heap is sampled through
+ * {@link MemoryMXBean} every few milliseconds. Not part of the normal build; run with
+ * {@code mvn test -Pbenchmark}. Numbers are printed; only that streaming grows the heap by less than half the
+ * bytes in flight, and less than buffering does, is asserted.
+ */
+@Tag("benchmark")
+class CloudinaryUploadHeapBenchmarkTest {
+
+    private static final int UPLOADS = 20;
+    private static final int FILE_BYTES = (int) DataSize.ofMegabytes(20).toBytes();
+    private static final String UPLOAD_RESULT =
+            "{\"public_id\":\"ecommerce/products/x\"," +
+                    "\"secure_url\":\"https://res.cloudinary.com/demo/image/upload/v1/x.png\"}";
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private HttpServer server;
+    private Cloudinary cloudinary;
+    private Path source;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+                byte[] response = UPLOAD_RESULT.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", "demo",
+                "api_key", "key",
+                "api_secret", "secret",
+                "upload_prefix", "http://127.0.0.1:" + server.getAddress().getPort()));
+
+        source = Files.createTempFile("upload-benchmark-", ".png");
+        try (RandomAccessFile file = new RandomAccessFile(source.toFile(), "rw")) {
+            file.setLength(FILE_BYTES);
+        }
+    }
+
+    @AfterEach
+    void stopStub() throws IOException {
+        server.stop(0);
+        Files.deleteIfExists(source);
+    }
+
+    @Test
+    void parallelLargeUploadsStreamFromDisk() throws Exception {
+        CloudinaryStorageService storage = new CloudinaryStorageService(cloudinary, "ecommerce/products",
+                DataSize.ofMegabytes(20), DataSize.ofMegabytes(6), UPLOADS, Duration.ofSeconds(60));
+
+        // warm up both paths so class loading and the JIT are not sampled
+        run("warm-up getBytes()", file -> uploadBytes(file));
+        run("warm-up streamed", storage::storeImage);
+
+        long buffered = run("getBytes()", file -> uploadBytes(file));
+        long streamed = run("streamed from disk", storage::storeImage);
+
+        assertThat(streamed).isLessThan((long) UPLOADS * FILE_BYTES / 2);
+        assertThat(streamed).isLessThan(buffered);
+    }
+
+    /**
+     * The upload as it was before streaming: the whole file read into the heap and posted from the array.
+     */
+    private String uploadBytes(MultipartFile file) {
+        try {
+            return (String) cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
+                    "folder", "ecommerce/products",
+                    "resource_type", "image")).get("secure_url");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Starts {@link #UPLOADS} uploads at once, samples the heap until all are done and prints the peak above
+     * the baseline measured after a GC. Returns that growth in bytes.
+     */
+    private long run(String path, Function<MultipartFile, String> upload) throws Exception {
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        ExecutorService sampler = Executors.newSingleThreadExecutor();
+        CompletableFuture<Void> sampling = new CompletableFuture<>();
+        sampler.execute(() -> {
+            while (!sampling.isDone()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+
+        ExecutorService admins = Executors.newFixedThreadPool(UPLOADS);
+        long began = System.nanoTime();
+        try {
+            List<CompletableFuture<String>> uploads = new ArrayList<>();
+            for (int i = 0; i < UPLOADS; i++) {
+                MultipartFile file = new DiskMultipartFile(source, "p" + i + ".png");
+                uploads.add(CompletableFuture.supplyAsync(() -> upload.apply(file), admins));
+            }
+            for (CompletableFuture<String> result : uploads) {
+                assertThat(result.get(2, TimeUnit.MINUTES)).startsWith("https://res.cloudinary.com/");
+            }
+        } finally {
+            sampling.complete(null);
+            admins.shutdown();
+            sampler.shutdown();
+            assertThat(sampler.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        long growth = peak.get() - baseline;
+        System.out.printf("Upload: %-22s %d x %d MB in %5.2f s, heap baseline %,5d MB, peak +%,5d MB%n",
+                path, UPLOADS, FILE_BYTES >> 20, seconds, baseline >> 20, growth >> 20);
+        return growth;
+    }
+
+    /**
+     * A multipart upload the container has already written to disk; {@code transferTo} copies the file, as
+     * it would for a part that cannot simply be moved.
+     */
+    private record DiskMultipartFile(Path path, String originalFilename) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "image";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/png";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return FILE_BYTES;
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
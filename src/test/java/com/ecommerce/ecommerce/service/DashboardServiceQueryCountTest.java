@@ -0,0 +1,103 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.DashboardResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import com.ecommerce.ecommerce.repositories.HourlySalesRollupRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.ProductSalesRollupRepository;
+import com.ecommerce.ecommerce.repositories.PurchasedProductRepository;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import com.ecommerce.ecommerce.schemas.HourlySalesRollup;
+import com.ecommerce.ecommerce.schemas.Products;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts the statements the dashboard overview prepares against a real PostgreSQL through Hibernate
+ * statistics: one aggregate per source, however much history there is. {@link DashboardServiceTest} covers
+ * the section handling without a database.
+ */
+class DashboardServiceQueryCountTest {
+
+    private static EmbeddedJpa jpa;
+    private static DashboardService dashboardService;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        jpa = EmbeddedJpa.start();
+        dashboardService = new DashboardService(
+                jpa.repository(ProductRepository.class),
+                jpa.repository(PurchasedProductRepository.class),
+                jpa.repository(UserRepository.class),
+                jpa.repository(CategoryRepository.class),
+                mock(RecentOrderLoader.class),
+                mock(CategoryNameCache.class),
+                jpa.repository(ProductSalesRollupRepository.class),
+                jpa.repository(HourlySalesRollupRepository.class),
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        jpa.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 24 * 45})
+    void overviewIssuesOneQueryPerSourceWhateverTheHistory(int hours) {
+        seed(hours);
+
+        EmbeddedJpa.Counted<ProductResponse<DashboardResponse.OverviewStats>> overview =
+                jpa.countStatements(dashboardService::getOverviewStats);
+
+        assertThat(overview.result().getStatus()).isEqualTo("success");
+        DashboardResponse.OverviewStats stats = overview.result().getData();
+        assertThat(stats.getTotalOrders()).isEqualTo(hours);
+        assertThat(stats.getTotalItemsSold()).isEqualTo(2L * hours);
+        assertThat(stats.getTotalRevenue()).isEqualByComparingTo(BigDecimal.TEN.multiply(BigDecimal.valueOf(hours)));
+        assertThat(stats.getMonthOrders()).isEqualTo(Math.min(hours, 24 * 30 + 1));
+        assertThat(stats.getTotalUsers()).isEqualTo(hours);
+        assertThat(stats.getTotalProducts()).isEqualTo(hours);
+        assertThat(stats.getOutOfStockCount()).isEqualTo(hours);
+        assertThat(overview.statements()).isEqualTo(3);
+    }
+
+    private static void seed(int hours) {
+        for (String table : new String[]{"hourly_sales_rollup", "ecommerce_users", "products"}) {
+            jpa.jdbcTemplate().update("DELETE FROM " + table);
+        }
+        LocalDateTime thisHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        jpa.persist(entityManager -> {
+            for (int i = 0; i < hours; i++) {
+                entityManager.persist(new HourlySalesRollup(thisHour.minusHours(i), 2, BigDecimal.TEN, 1,
+                        LocalDateTime.now()));
+
+                EcommerceUsers user = new EcommerceUsers();
+                user.setEmail("user" + i + "@example.com");
+                user.setPassword("hash");
+                user.setFirstName("First");
+                user.setLastName("Last");
+                entityManager.persist(user);
+
+                Products product = new Products();
+                product.setTitle("Product " + i);
+                product.setProductUrl("http://cdn.test/p" + i + ".png");
+                product.setPrice(BigDecimal.TEN);
+                product.setQuantity(0);
+                entityManager.persist(product);
+            }
+        });
+    }
+}
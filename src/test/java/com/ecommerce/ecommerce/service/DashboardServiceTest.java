@@ -0,0 +1,114 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.DashboardResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private PurchasedProductRepository purchasedProductRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private RecentOrderLoader recentOrderLoader;
+    @Mock
+    private ProductSalesRollupRepository productSalesRollupRepository;
+    @Mock
+    private HourlySalesRollupRepository hourlySalesRollupRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        HourlySalesRollupRepository.SalesWindowStats sales = mock(HourlySalesRollupRepository.SalesWindowStats.class);
+        when(sales.getTotalRevenue()).thenReturn(new BigDecimal("150.00"));
+        when(sales.getTotalOrders()).thenReturn(3L);
+        when(sales.getTotalItemsSold()).thenReturn(11L);
+        when(hourlySalesRollupRepository.getSalesWindowStats(any(), any(), any())).thenReturn(sales);
+
+        UserRepository.UserWindowStats users = mock(UserRepository.UserWindowStats.class);
+        when(users.getTotalUsers()).thenReturn(7L);
+        when(userRepository.getUserWindowStats(any(), any(), any())).thenReturn(users);
+
+        ProductRepository.StockStats stock = mock(ProductRepository.StockStats.class);
+        when(stock.getLowStockCount()).thenReturn(2L);
+        when(productRepository.getStockStats(anyInt())).thenReturn(stock);
+    }
+
+    @Test
+    void overviewIssuesAtMostFourQueries() {
+        ProductResponse<DashboardResponse.OverviewStats> response = dashboardService.getOverviewStats();
+
+        assertThat(response.getStatus()).isEqualTo("success");
+        assertThat(response.getData().getTotalRevenue()).isEqualByComparingTo("150.00");
+        assertThat(response.getData().getTotalOrders()).isEqualTo(3);
+        assertThat(response.getData().getTotalUsers()).isEqualTo(7);
+        assertThat(response.getData().getLowStockCount()).isEqualTo(2);
+        assertThat(response.getData().getTotalItemsSold()).isEqualTo(11);
+        assertThat(repositoryCalls()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void slowSectionIsLeftOutAndMarkedDegraded() {
+        ReflectionTestUtils.setField(dashboardService, "sectionPoolSize", 5);
+        ReflectionTestUtils.setField(dashboardService, "sectionQueueCapacity", 5);
+        ReflectionTestUtils.setField(dashboardService, "sectionTimeout", Duration.ofMillis(300));
+        dashboardService.startSectionExecutor();
+        when(productRepository.findLowStockProducts(anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return List.of();
+        });
+
+        try {
+            long start = System.nanoTime();
+            ProductResponse<DashboardResponse> response = dashboardService.getDashboard();
+
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            assertThat(response.getStatus()).isEqualTo("success");
+            assertThat(response.getData().isDegraded()).isTrue();
+            assertThat(response.getData().getDegradedSections()).containsExactly("lowStockProducts");
+            assertThat(response.getData().getLowStockProducts()).isNull();
+            assertThat(response.getData().getOverview().getTotalOrders()).isEqualTo(3);
+            assertThat(response.getData().getSectionTimings()).containsOnlyKeys(
+                    "overview", "topProducts", "categoryStats", "lowStockProducts", "recentOrders");
+        } finally {
+            dashboardService.stopSectionExecutor();
+        }
+    }
+
+    private long repositoryCalls() {
+        return Stream.of(productRepository, purchasedProductRepository, userRepository, categoryRepository,
+                        productSalesRollupRepository, hourlySalesRollupRepository)
+                .mapToLong(repository -> mockingDetails(repository).getInvocations().size())
+                .sum();
+    }
+}
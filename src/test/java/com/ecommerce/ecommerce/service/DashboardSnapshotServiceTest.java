@@ -0,0 +1,138 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.DashboardResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.models.RecentOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardSnapshotServiceTest {
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DashboardSnapshotService snapshotService;
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.shutdown();
+    }
+
+    @Test
+    void concurrentRefreshesShareOneComputation() throws Exception {
+        snapshotService = new DashboardSnapshotService(dashboardService, meterRegistry, Duration.ofMinutes(1), 50);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dashboardService.getDashboard()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return success(LocalDateTime.now());
+        });
+
+        List<CompletableFuture<ProductResponse<DashboardResponse>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(snapshotService.refresh());
+        }
+        release.countDown();
+        for (CompletableFuture<ProductResponse<DashboardResponse>> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo("success");
+        }
+
+        verify(dashboardService, times(1)).getDashboard();
+        assertThat(meterRegistry.get("dashboard.snapshot.refresh").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void staleSnapshotIsServedWhileRefreshing() throws Exception {
+        snapshotService = new DashboardSnapshotService(dashboardService, meterRegistry, Duration.ofSeconds(1), 50);
+        LocalDateTime old = LocalDateTime.now().minusMinutes(5);
+        when(dashboardService.getDashboard()).thenReturn(success(old), success(LocalDateTime.now()));
+
+        assertThat(snapshotService.getDashboard().getData().getGeneratedAt()).isEqualTo(old);
+        // stale: still answered with the old snapshot, refresh happens in the background
+        assertThat(snapshotService.getDashboard().getData().getGeneratedAt()).isEqualTo(old);
+        snapshotService.refresh().get(5, TimeUnit.SECONDS);
+
+        assertThat(snapshotService.getDashboard().getData().getGeneratedAt()).isAfter(old);
+    }
+
+    @Test
+    void failedRefreshKeepsLastGoodSnapshot() throws Exception {
+        snapshotService = new DashboardSnapshotService(dashboardService, meterRegistry, Duration.ofMinutes(1), 50);
+        ProductResponse<DashboardResponse> good = success(LocalDateTime.now());
+        when(dashboardService.getDashboard()).thenReturn(good, ProductResponse.<DashboardResponse>builder()
+                .status("error")
+                .message("Failed to fetch dashboard data")
+                .build());
+
+        snapshotService.getDashboard();
+        assertThat(snapshotService.refresh().get(5, TimeUnit.SECONDS)).isSameAs(good);
+        assertThat(snapshotService.getDashboard()).isSameAs(good);
+        assertThat(meterRegistry.get("dashboard.snapshot.refresh").tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void degradedRefreshKeepsFailedSectionsFromLastSnapshot() throws Exception {
+        snapshotService = new DashboardSnapshotService(dashboardService, meterRegistry, Duration.ofMinutes(1), 50);
+        LocalDateTime first = LocalDateTime.now().minusSeconds(30);
+        DashboardResponse.OverviewStats overview = DashboardResponse.OverviewStats.builder().totalOrders(7).build();
+        List<RecentOrderResponse> oldOrders = List.of(RecentOrderResponse.builder().orderId(1L).build());
+        List<RecentOrderResponse> newOrders = List.of(RecentOrderResponse.builder().orderId(2L).build());
+        when(dashboardService.getDashboard()).thenReturn(
+                success(DashboardResponse.builder().generatedAt(first).overview(overview).recentOrders(oldOrders)
+                        .degradedSections(List.of()).build()),
+                success(DashboardResponse.builder().generatedAt(LocalDateTime.now()).recentOrders(newOrders)
+                        .degraded(true).degradedSections(List.of("overview")).build()));
+
+        snapshotService.getDashboard();
+        DashboardResponse refreshed = snapshotService.refresh().get(5, TimeUnit.SECONDS).getData();
+
+        assertThat(refreshed.getOverview()).isSameAs(overview);
+        assertThat(refreshed.getRecentOrders()).isSameAs(newOrders);
+        assertThat(refreshed.isDegraded()).isTrue();
+        assertThat(refreshed.getDegradedSections()).containsExactly("overview");
+        assertThat(snapshotService.getDashboard().getData()).isSameAs(refreshed);
+        assertThat(meterRegistry.get("dashboard.snapshot.refresh").tag("outcome", "degraded").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void purchasesTriggerRefreshAtThreshold() {
+        snapshotService = new DashboardSnapshotService(dashboardService, meterRegistry, Duration.ofMinutes(1), 3);
+        when(dashboardService.getDashboard()).thenReturn(success(LocalDateTime.now()));
+
+        snapshotService.recordPurchase();
+        snapshotService.recordPurchase();
+        verify(dashboardService, times(0)).getDashboard();
+
+        snapshotService.recordPurchase();
+        verify(dashboardService, timeout(5000).times(1)).getDashboard();
+    }
+
+    private static ProductResponse<DashboardResponse> success(LocalDateTime generatedAt) {
+        return success(DashboardResponse.builder().generatedAt(generatedAt).build());
+    }
+
+    private static ProductResponse<DashboardResponse> success(DashboardResponse dashboard) {
+        return ProductResponse.<DashboardResponse>builder()
+                .status("success")
+                .message("Dashboard data fetched successfully")
+                .data(dashboard)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepositoryCustomImpl;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The application's entities and Spring Data repositories on an embedded PostgreSQL, for tests that count
+ * the statements a service sends. The schema comes from the entities; the second-level cache is off, so
+ * every lookup reaches the database.
+ */
+final class EmbeddedJpa implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private final EntityManager entityManager;
+    private final JpaRepositoryFactory repositories;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Statistics statistics;
+
+    private EmbeddedJpa(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+        DataSource dataSource = postgres.getPostgresDatabase();
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.ecommerce.ecommerce.schemas");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                // Spring Boot's default, so native queries see the same column names as in the application
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.generate_statistics", "true",
+                "hibernate.cache.use_second_level_cache", "false",
+                "hibernate.cache.use_query_cache", "false"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        transaction = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        readOnlyTransaction = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        readOnlyTransaction.setReadOnly(true);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        repositories = new JpaRepositoryFactory(entityManager);
+    }
+
+    static EmbeddedJpa start() throws IOException {
+        return new EmbeddedJpa(EmbeddedPostgres.builder().start());
+    }
+
+    <T> T repository(Class<T> repositoryInterface) {
+        if (repositoryInterface == ProductRepository.class) {
+            return repositories.getRepository(repositoryInterface, RepositoryFragments.just(
+                    new ProductRepositoryCustomImpl(jdbcTemplate(), entityManagerFactoryBean.getObject(),
+                            entityManager)));
+        }
+        return repositories.getRepository(repositoryInterface);
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    /**
+     * Persists test data in its own transaction.
+     */
+    void persist(Consumer<EntityManager> seed) {
+        transaction.executeWithoutResult(status -> seed.accept(entityManager));
+    }
+
+    /**
+     * Runs {@code work} in a read-only transaction, as the service's caller would, and returns the statements
+     * it prepared together with its result.
+     */
+    <T> Counted<T> countStatements(Supplier<T> work) {
+        statistics.clear();
+        T result = readOnlyTransaction.execute(status -> work.get());
+        return new Counted<>(result, statistics.getPrepareStatementCount());
+    }
+
+    @Override
+    public void close() throws IOException {
+        entityManagerFactoryBean.destroy();
+        postgres.close();
+    }
+
+    record Counted<T>(T result, long statements) {
+    }
+}
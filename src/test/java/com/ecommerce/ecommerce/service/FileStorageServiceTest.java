@@ -0,0 +1,131 @@
+package com.ecommerce.ecommerce.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Remote image downloads against a local server; the address check is widened to allow loopback only.
+ */
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private final FileStorageService storage = new FileStorageService();
+    private HttpServer server;
+    private String origin;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok.png", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, 1024);
+            exchange.getResponseBody().write(new byte[1024]);
+            exchange.close();
+        });
+        server.createContext("/page.html", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, 4);
+            exchange.getResponseBody().write("<p/>".getBytes());
+            exchange.close();
+        });
+        // no Content-Length, so only the byte count can stop it
+        server.createContext("/huge.png", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, 0);
+            try {
+                for (int i = 0; i < 64; i++) {
+                    exchange.getResponseBody().write(new byte[1024]);
+                }
+            } catch (Exception ignored) {
+                // the client hung up once the cap was reached
+            }
+            exchange.close();
+        });
+        server.createContext("/to-metadata.png", exchange -> {
+            exchange.getResponseHeaders().add("Location", "http://169.254.169.254/latest/meta-data/");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/to-ok.png", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/ok.png");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storage, "baseUrl", "http://cdn.test/uploads");
+        ReflectionTestUtils.setField(storage, "maxRemoteImageSize", DataSize.ofKilobytes(16));
+        Predicate<InetAddress> loopbackOrPublic =
+                address -> address.isLoopbackAddress() || FileStorageService.isPublicAddress(address);
+        ReflectionTestUtils.setField(storage, "allowedAddress", loopbackOrPublic);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void imagesAreStoredAndRedirectsFollowed() throws Exception {
+        assertThat(storage.storeRemoteImage(origin + "/ok.png")).startsWith("http://cdn.test/uploads/");
+        assertThat(storage.storeRemoteImage(origin + "/to-ok.png")).startsWith("http://cdn.test/uploads/");
+
+        try (var files = Files.list(uploadDir)) {
+            assertThat(files).hasSize(2).allSatisfy(file -> assertThat(Files.size(file)).isEqualTo(1024));
+        }
+    }
+
+    @Test
+    void unsafeOrInvalidDownloadsAreRejectedWithoutLeavingFiles() throws Exception {
+        assertThatThrownBy(() -> storage.storeRemoteImage(origin + "/to-metadata.png"))
+                .hasMessageContaining("non-public address");
+        assertThatThrownBy(() -> storage.storeRemoteImage(origin + "/page.html"))
+                .hasMessageContaining("Not an image");
+        assertThatThrownBy(() -> storage.storeRemoteImage(origin + "/huge.png"))
+                .hasMessageContaining("larger than");
+        assertThatThrownBy(() -> storage.storeRemoteImage("file:///etc/passwd"))
+                .hasMessageContaining("Unsupported image URL");
+
+        try (var files = Files.list(uploadDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void internalAddressesAreNotPublic() throws Exception {
+        for (String address : new String[]{"127.0.0.1", "0.0.0.0", "10.1.2.3", "172.16.0.1", "192.168.1.1",
+                "169.254.169.254", "100.64.0.1", "::1", "fe80::1", "fd00::1", "::ffff:127.0.0.1"}) {
+            assertThat(FileStorageService.isPublicAddress(InetAddress.getByName(address))).as(address).isFalse();
+        }
+        assertThat(FileStorageService.isPublicAddress(InetAddress.getByName("93.184.216.34"))).isTrue();
+        assertThat(FileStorageService.isPublicAddress(InetAddress.getByName("2606:2800:220:1::"))).isTrue();
+    }
+
+    @Test
+    void loopbackIsRefusedByDefault() {
+        FileStorageService defaults = new FileStorageService();
+        ReflectionTestUtils.setField(defaults, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(defaults, "maxRemoteImageSize", DataSize.ofKilobytes(16));
+
+        assertThatThrownBy(() -> defaults.storeRemoteImage(origin + "/ok.png"))
+                .hasMessageContaining("non-public address");
+    }
+}
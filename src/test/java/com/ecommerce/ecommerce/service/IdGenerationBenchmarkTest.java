@@ -0,0 +1,185 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput of {@code saveAll} for 20k orders and 20k products in one transaction against a real
+ * PostgreSQL, with the application's batching settings: the entities' pooled-lo sequences against copies of
+ * them mapped with {@code IDENTITY}, as they were before, which Hibernate cannot batch. Not part of the normal
+ * build; run with {@code mvn test -Pbenchmark}. Rows per second and prepared statements are printed, not
+ * asserted.
+ */
+@Tag("benchmark")
+class IdGenerationBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+    private static final int ROUNDS = 3;
+
+    private static EmbeddedPostgres postgres;
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private static EntityManager entityManager;
+    private static TransactionTemplate transaction;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(postgres.getPostgresDatabase());
+        entityManagerFactoryBean.setManagedTypes(PersistenceManagedTypes.of(Orders.class.getName(),
+                Products.class.getName(), IdentityOrders.class.getName(), IdentityProducts.class.getName()));
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // as in application.properties
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.jdbc.batch_size", "50",
+                "hibernate.order_inserts", "true",
+                "hibernate.order_updates", "true",
+                "hibernate.id.optimizer.pooled.preferred", "pooled-lo",
+                "hibernate.generate_statistics", "true",
+                "hibernate.cache.use_second_level_cache", "false"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        transaction = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        entityManagerFactoryBean.destroy();
+        postgres.close();
+    }
+
+    @Test
+    void sequencesAgainstIdentity() {
+        for (int round = 1; round <= ROUNDS; round++) {
+            insert("orders", "IDENTITY", round, IdentityOrders.class, i -> {
+                IdentityOrders order = new IdentityOrders();
+                order.setUserId((long) i);
+                order.setTotalAmount(BigDecimal.TEN);
+                order.setStatus("COMPLETED");
+                return order;
+            });
+            insert("orders", "pooled-lo", round, Orders.class, i -> {
+                Orders order = new Orders();
+                order.setUserId((long) i);
+                order.setTotalAmount(BigDecimal.TEN);
+                order.setStatus("COMPLETED");
+                return order;
+            });
+            insert("products", "IDENTITY", round, IdentityProducts.class, i -> {
+                IdentityProducts product = new IdentityProducts();
+                product.setTitle("Product " + i);
+                product.setProductUrl("http://cdn.test/p" + i + ".png");
+                product.setPrice(BigDecimal.TEN);
+                product.setQuantity(100);
+                return product;
+            });
+            insert("products", "pooled-lo", round, Products.class, i -> {
+                Products product = new Products();
+                product.setTitle("Product " + i);
+                product.setProductUrl("http://cdn.test/p" + i + ".png");
+                product.setPrice(BigDecimal.TEN);
+                product.setQuantity(100);
+                return product;
+            });
+        }
+    }
+
+    private static <T> void insert(String table, String ids, int round, Class<T> type, IntFunction<T> row) {
+        List<T> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row.apply(i));
+        }
+        SimpleJpaRepository<T, Long> repository = new SimpleJpaRepository<>(type, entityManager);
+        statistics.clear();
+        long began = System.nanoTime();
+        transaction.executeWithoutResult(status -> repository.saveAll(rows));
+        double seconds = (System.nanoTime() - began) / 1e9;
+        System.out.printf("Insert: %-8s %-9s round %d %,7.0f rows/s, %,6d statements prepared%n",
+                table, ids, round, ROWS / seconds, statistics.getPrepareStatementCount());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+    }
+
+    /**
+     * {@link Orders} as it was mapped before the move to sequences.
+     */
+    @Data
+    @Entity
+    @Table(name = "identity_orders")
+    static class IdentityOrders {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private Long userId;
+
+        @Column(nullable = false, precision = 10, scale = 2)
+        private BigDecimal totalAmount;
+
+        @Column(length = 20)
+        private String status;
+    }
+
+    /**
+     * {@link Products} as it was mapped before the move to sequences.
+     */
+    @Data
+    @Entity
+    @Table(name = "identity_products")
+    static class IdentityProducts {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false, length = 120)
+        private String title;
+
+        private Long categoryId;
+
+        @Column(nullable = false, length = 500)
+        private String productUrl;
+
+        @Column(nullable = false)
+        private BigDecimal price;
+
+        private int quantity;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.OrderRepository;
+import com.ecommerce.ecommerce.repositories.OrderRepository.OrderExportRow;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderExportServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 1, 12, 30);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final OrderExportService exportService = new OrderExportService(orderRepository, jsonMapper);
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() throws Exception {
+        Stream<OrderExportRow> rows = Stream.of(row(1L, "Phone, \"Pro\"", 2), row(2L, null, null));
+        when(orderRepository.streamOrderExport(any(), any())).thenReturn(rows);
+
+        String csv = export(OrderExportService.Format.CSV);
+
+        assertThat(csv.split("\r\n")).containsExactly(
+                "order_id,created_at,status,total_amount,user_id,user_email,product_id,product_title,quantity,price_at_purchase",
+                "1,2026-03-01T12:30,COMPLETED,21.00,7,a@b.com,1,\"Phone, \"\"Pro\"\"\",2,10.50",
+                "2,2026-03-01T12:30,COMPLETED,21.00,7,a@b.com,,,,");
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        Stream<OrderExportRow> rows = Stream.of(row(1L, "Phone", 2), row(2L, null, null));
+        when(orderRepository.streamOrderExport(any(), any())).thenReturn(rows);
+
+        String ndjson = export(OrderExportService.Format.NDJSON);
+
+        assertThat(ndjson).endsWith("\n");
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = jsonMapper.readTree(lines[0]);
+        assertThat(first.get("orderId").asLong()).isEqualTo(1);
+        assertThat(first.get("productTitle").asString()).isEqualTo("Phone");
+        assertThat(first.get("quantity").asInt()).isEqualTo(2);
+        assertThat(first.get("priceAtPurchase").decimalValue()).isEqualByComparingTo("10.50");
+        assertThat(jsonMapper.readTree(lines[1]).get("productId").isNull()).isTrue();
+    }
+
+    private String export(OrderExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(format, null, null, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A line of order {@code orderId}; a null title stands for an order without line items.
+     */
+    private static OrderExportRow row(Long orderId, String productTitle, Integer quantity) {
+        OrderExportRow row = mock(OrderExportRow.class);
+        when(row.getOrderId()).thenReturn(orderId);
+        when(row.getCreatedAt()).thenReturn(CREATED_AT);
+        when(row.getStatus()).thenReturn("COMPLETED");
+        when(row.getTotalAmount()).thenReturn(new BigDecimal("21.00"));
+        when(row.getUserId()).thenReturn(7L);
+        when(row.getUserEmail()).thenReturn("a@b.com");
+        when(row.getProductId()).thenReturn(productTitle != null ? orderId : null);
+        when(row.getProductTitle()).thenReturn(productTitle);
+        when(row.getQuantity()).thenReturn(quantity);
+        when(row.getPriceAtPurchase()).thenReturn(productTitle != null ? new BigDecimal("10.50") : null);
+        return row;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            release.await();
+            return "hash";
+        });
+        PasswordHashingService service = new PasswordHashingService(encoder, 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("b"));
+        while (meterRegistry.get("auth.password.hash.queue").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThatThrownBy(() -> service.encode("c")).isInstanceOf(PasswordHashingBusyException.class);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+        service.shutdown();
+    }
+
+    @Test
+    void hashNotDoneWithinMaxWaitIsRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), any())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        PasswordHashingService service = new PasswordHashingService(encoder, 1, 4, Duration.ofMillis(50), meterRegistry);
+
+        assertThatThrownBy(() -> service.matches("a", "hash")).isInstanceOf(PasswordHashingBusyException.class);
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void weakerHashesAreUpgraded() throws Exception {
+        String stored = new BCryptPasswordEncoder(4).encode("secret");
+        PasswordHashingService service = new PasswordHashingService(new BCryptPasswordEncoder(5), 1, 4,
+                Duration.ofSeconds(5), meterRegistry);
+
+        assertThat(service.upgradeEncoding(stored)).isTrue();
+        CompletableFuture<String> rehashed = new CompletableFuture<>();
+        service.rehashInBackground("secret", rehashed::complete);
+
+        String upgraded = rehashed.get(5, TimeUnit.SECONDS);
+        assertThat(upgraded).startsWith("$2a$05$");
+        assertThat(service.matches("secret", upgraded)).isTrue();
+        assertThat(service.upgradeEncoding(upgraded)).isFalse();
+        service.shutdown();
+    }
+}
@@ -0,0 +1,165 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductImportJobResponse;
+import com.ecommerce.ecommerce.models.ProductResponse;
+import com.ecommerce.ecommerce.repositories.CategoryRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Category;
+import com.ecommerce.ecommerce.schemas.Products;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductImportServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final ImageStorageService imageStorageService = mock(ImageStorageService.class);
+    private final List<Products> saved = new ArrayList<>();
+    private final ProductImportService importService = new ProductImportService(productRepository,
+            categoryRepository, imageStorageService, mock(ProductSuggestIndex.class),
+            mock(CatalogResponseCache.class), JsonMapper.builder().build(), mock(PlatformTransactionManager.class),
+            2, 2, 1, 100);
+
+    @AfterEach
+    void shutdown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void csvRowsAreValidatedAndImportedInBatches() throws Exception {
+        Category phones = new Category();
+        phones.setId(3L);
+        when(categoryRepository.findByName("Phones")).thenReturn(Optional.of(phones));
+        when(categoryRepository.findByName("Toys")).thenReturn(Optional.empty());
+        when(imageStorageService.storeRemoteImage("https://img/ok.png")).thenReturn("/uploads/ok.png");
+        when(imageStorageService.storeRemoteImage("https://img/missing.png")).thenThrow(new RuntimeException("404"));
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Products> batch = invocation.getArgument(0);
+            saved.addAll(batch);
+            return batch;
+        });
+
+        String csv = "Title,Description,Price,Quantity,Category,Image URL\r\n"
+                + "\"Phone, \"\"Pro\"\"\",\"two\nlines\",999.99,5,Phones,https://img/ok.png\r\n"
+                + "\r\n"
+                + "Case,,9.50,,Phones,\n"
+                + ",no title,1,1,Phones,\n"
+                + "Ball,,-1,1,,\n"
+                + "Doll,,5,1,Toys,\n"
+                + "Cable,,3,1,Phones,https://img/missing.png\n"
+                + "Charger,,15,2,Phones,";
+
+        ProductImportJobResponse job = awaitJob(importService.startImport(
+                new MockMultipartFile("file", "products.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)), null));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getProcessedRows()).isEqualTo(7);
+        assertThat(job.getImportedRows()).isEqualTo(3);
+        assertThat(job.getFailedRows()).isEqualTo(4);
+        assertThat(job.getFailures()).extracting(ProductImportJobResponse.RowFailure::getRow)
+                .containsExactlyInAnyOrder(3L, 4L, 5L, 6L);
+        assertThat(saved).extracting(Products::getTitle).containsExactly("Phone, \"Pro\"", "Case", "Charger");
+        assertThat(saved.get(0).getDescription()).isEqualTo("two\nlines");
+        assertThat(saved.get(0).getProductUrl()).isEqualTo("/uploads/ok.png");
+        assertThat(saved.get(1).getQuantity()).isZero();
+        assertThat(saved).extracting(Products::getCategoryId).containsOnly(3L);
+        // category names are looked up once per job
+        verify(categoryRepository, times(1)).findByName("Phones");
+    }
+
+    @Test
+    void ndjsonReportsMalformedLines() throws Exception {
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String ndjson = "{\"title\":\"Lamp\",\"price\":12.5,\"quantity\":3}\n"
+                + "not json\n"
+                + "[1,2]\n";
+
+        ProductImportJobResponse job = awaitJob(importService.startImport(
+                new MockMultipartFile("file", "products.txt", "text/plain", ndjson.getBytes(StandardCharsets.UTF_8)),
+                "ndjson"));
+
+        assertThat(job.getImportedRows()).isEqualTo(1);
+        assertThat(job.getFailures()).extracting(ProductImportJobResponse.RowFailure::getMessage)
+                .containsExactly("malformed JSON", "expected a JSON object");
+        verify(imageStorageService, times(0)).storeRemoteImage(anyString());
+    }
+
+    @Test
+    void aRejectedRowFailsAloneInsteadOfItsBatch() throws Exception {
+        when(imageStorageService.storeRemoteImage(anyString()))
+                .thenAnswer(invocation -> "/uploads/" + invocation.getArgument(0, String.class).substring(12));
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Products> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(product -> product.getTitle().equals("Duplicate"))) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            saved.addAll(batch);
+            return batch;
+        });
+        when(productRepository.save(any())).thenAnswer(invocation -> {
+            Products product = invocation.getArgument(0);
+            if (product.getTitle().equals("Duplicate")) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            saved.add(product);
+            return product;
+        });
+
+        String csv = "title,description,price,imageUrl\n"
+                + "Lamp,,10,https://img/lamp.png\n"
+                + "Duplicate,,10,https://img/dup.png\n"
+                + "Chair," + "x".repeat(256) + ",10,\n"
+                + "Desk,,10,\n";
+
+        ProductImportJobResponse job = awaitJob(importService.startImport(
+                new MockMultipartFile("file", "products.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)), null));
+
+        assertThat(job.getImportedRows()).isEqualTo(2);
+        assertThat(job.getFailures()).extracting(ProductImportJobResponse.RowFailure::getRow)
+                .containsExactlyInAnyOrder(2L, 3L);
+        assertThat(saved).extracting(Products::getTitle).containsExactly("Lamp", "Desk");
+        // only the rejected row's image is removed
+        verify(imageStorageService).deleteImage("/uploads/dup.png");
+        verify(imageStorageService, never()).deleteImage("/uploads/lamp.png");
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        ProductResponse<ProductImportJobResponse> response = importService.startImport(
+                new MockMultipartFile("file", "products.xlsx", null, new byte[]{1}), null);
+
+        assertThat(response.getStatus()).isEqualTo("error");
+    }
+
+    private ProductImportJobResponse awaitJob(ProductResponse<ProductImportJobResponse> started) throws Exception {
+        assertThat(started.getStatus()).isEqualTo("success");
+        String jobId = started.getData().getJobId();
+        for (int i = 0; i < 500; i++) {
+            ProductImportJobResponse job = importService.getJob(jobId).getData();
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("import did not finish");
+    }
+}
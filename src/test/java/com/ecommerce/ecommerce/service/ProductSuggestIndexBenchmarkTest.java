@@ -0,0 +1,68 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductSuggestion;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lookup latency and heap of the suggest index at 100k products. Not part of the normal build; run with
+ * {@code mvn test -Pbenchmark}. Numbers are printed, not asserted.
+ */
+@Tag("benchmark")
+class ProductSuggestIndexBenchmarkTest {
+
+    private static final String[] BRANDS = {"Samsung", "Apple", "Sony", "Dell", "Lenovo", "Xiaomi", "Nokia", "Asus"};
+    private static final String[] KINDS = {"phone", "laptop", "tablet", "headphones", "monitor", "camera", "speaker", "watch"};
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSuggestIndex index =
+            new ProductSuggestIndex(productRepository, new SimpleMeterRegistry(), true);
+
+    @Test
+    void lookupLatencyAndMemoryPer100kProducts() {
+        int products = 100_000;
+        List<ProductRepository.SuggestSource> sources = new ArrayList<>(products);
+        for (int i = 1; i <= products; i++) {
+            sources.add(ProductSuggestIndexTest.source((long) i,
+                    BRANDS[i % BRANDS.length] + " " + KINDS[(i / 8) % KINDS.length] + " model " + i,
+                    "Great device number " + i + " with warranty"));
+        }
+        when(productRepository.findAllSuggestSources()).thenReturn(sources);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        index.build();
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        String[] queries = {"s", "sam", "samsung ph", "model 4242", "lenovo lap mod", "zzz"};
+        for (int warmup = 0; warmup < 200; warmup++) {
+            for (String query : queries) {
+                index.suggest(query, 8);
+            }
+        }
+        System.out.printf("Suggest: %,d products, ~%d MB heap (incl. sources)%n",
+                products, (heapAfter - heapBefore) / (1024 * 1024));
+        int rounds = 2_000;
+        for (String query : queries) {
+            long began = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                index.suggest(query, 8);
+            }
+            double micros = (System.nanoTime() - began) / 1_000.0 / rounds;
+            System.out.printf("Suggest: %-16s %7.1f us per lookup%n", "'" + query + "'", micros);
+        }
+
+        assertThat(index.suggest("model 99999", 8)).extracting(ProductSuggestion::getId).containsExactly(99999L);
+    }
+}
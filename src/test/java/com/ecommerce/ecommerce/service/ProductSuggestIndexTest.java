@@ -0,0 +1,132 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.ProductSuggestion;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.schemas.Products;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSuggestIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSuggestIndex index =
+            new ProductSuggestIndex(productRepository, new SimpleMeterRegistry(), true);
+
+    @Test
+    void matchesEveryWordAsPrefixWithTitleHitsFirst() {
+        seed(List.of(
+                source(1L, "Samsung Galaxy phone", "big screen"),
+                source(2L, "Charging cable", "works with samsung phones"),
+                source(3L, "Samsung monitor", "office display"),
+                source(4L, "Samsung Galaxy Tab", "tablet")));
+
+        assertThat(ids(index.suggest("sams pho", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.suggest("SAMSUNG", 10))).containsExactly(4L, 3L, 1L, 2L);
+        assertThat(ids(index.suggest("galaxy", 1))).containsExactly(4L);
+        assertThat(index.suggest("zzz", 10)).isEmpty();
+        assertThat(index.suggest("  !! ", 10)).isEmpty();
+    }
+
+    @Test
+    void followsProductEditsAndDeletes() {
+        seed(List.of(source(1L, "Old name", "d"), source(2L, "Other", "d")));
+
+        index.upsert(product(1L, "New name"));
+        index.remove(2L);
+
+        assertThat(index.suggest("old", 10)).isEmpty();
+        assertThat(ids(index.suggest("new", 10))).containsExactly(1L);
+        assertThat(index.suggest("other", 10)).isEmpty();
+
+        index.upsert(product(5L, "Newest"));
+        assertThat(ids(index.suggest("new", 10))).containsExactly(5L, 1L);
+    }
+
+    @Test
+    void anEditedProductKeepsItsPlaceInsteadOfJumpingToNewest() {
+        seed(List.of(source(1L, "Lamp one", "d"), source(2L, "Lamp two", "d"), source(3L, "Lamp three", "d")));
+
+        index.upsert(product(1L, "Lamp one, renamed"));
+
+        assertThat(ids(index.suggest("lamp", 10))).containsExactly(3L, 2L, 1L);
+        assertThat(ids(index.suggest("lamp", 2))).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void compactionRebuildsOffTheEditingThread() throws Exception {
+        seed(List.of(source(1L, "Lamp", "d")));
+        CompletableFuture<Thread> rebuiltOn = new CompletableFuture<>();
+        when(productRepository.findAllSuggestSources()).thenAnswer(invocation -> {
+            rebuiltOn.complete(Thread.currentThread());
+            return List.of(source(1L, "Lamp", "d"));
+        });
+
+        // every edit leaves a tombstone; past 2,000 slots for one live product the index compacts
+        for (int i = 0; i < 2_000; i++) {
+            index.upsert(product(1L, "Lamp"));
+        }
+
+        assertThat(rebuiltOn.get(10, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+        assertThat(ids(index.suggest("lamp", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void editsCommittedDuringARebuildSurviveIt() {
+        seed(List.of(source(1L, "Lamp", "d"), source(2L, "Chair", "d")));
+
+        // the rebuild read a snapshot that predates these edits
+        when(productRepository.findAllSuggestSources()).thenAnswer(invocation -> {
+            index.remove(2L);
+            index.upsert(product(1L, "Desk lamp"));
+            index.upsert(product(3L, "Table"));
+            return List.of(source(1L, "Lamp", "d"), source(2L, "Chair", "d"));
+        });
+        index.build();
+
+        assertThat(index.suggest("chair", 10)).isEmpty();
+        assertThat(ids(index.suggest("desk", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("table", 10))).containsExactly(3L);
+        assertThat(ids(index.suggest("lamp", 10))).containsExactly(1L);
+    }
+
+    private void seed(List<ProductRepository.SuggestSource> sources) {
+        when(productRepository.findAllSuggestSources()).thenReturn(sources);
+        index.build();
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getId).toList();
+    }
+
+    static Products product(Long id, String title) {
+        Products product = new Products();
+        product.setId(id);
+        product.setTitle(title);
+        product.setDescription("d");
+        return product;
+    }
+
+    static ProductRepository.SuggestSource source(Long id, String title, String description) {
+        return new ProductRepository.SuggestSource() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getTitle() {
+                return title;
+            }
+
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.RecentOrderResponse;
+import com.ecommerce.ecommerce.repositories.OrderRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.PurchasedProductRepository;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements {@link RecentOrderLoader} prepares against a real PostgreSQL through Hibernate
+ * statistics, so a lazy association or a per-order lookup added later shows up as extra queries.
+ * {@link RecentOrderLoaderTest} checks the stitching without a database.
+ */
+class RecentOrderLoaderQueryCountTest {
+
+    private static final int ORDERS = 50;
+    private static final int ITEMS_PER_ORDER = 5;
+
+    private static EmbeddedJpa jpa;
+    private static RecentOrderLoader loader;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        jpa = EmbeddedJpa.start();
+        loader = new RecentOrderLoader(
+                jpa.repository(OrderRepository.class),
+                jpa.repository(UserRepository.class),
+                jpa.repository(PurchasedProductRepository.class),
+                jpa.repository(ProductRepository.class));
+        jpa.persist(RecentOrderLoaderQueryCountTest::seed);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        jpa.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, ORDERS})
+    void queryCountDoesNotDependOnLimit(int limit) {
+        EmbeddedJpa.Counted<List<RecentOrderResponse>> load = jpa.countStatements(() -> loader.load(limit));
+
+        assertThat(load.result()).hasSize(limit);
+        assertThat(load.result()).allSatisfy(order -> {
+            assertThat(order.getUserEmail()).startsWith("user");
+            assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER)
+                    .allSatisfy(item -> assertThat(item.getProductTitle()).startsWith("Product "));
+        });
+        assertThat(load.statements()).isEqualTo(4);
+    }
+
+    private static void seed(EntityManager entityManager) {
+        Long[] productIds = new Long[ITEMS_PER_ORDER];
+        for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+            Products product = new Products();
+            product.setTitle("Product " + j);
+            product.setProductUrl("http://cdn.test/p" + j + ".png");
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(100);
+            entityManager.persist(product);
+            productIds[j] = product.getId();
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            EcommerceUsers user = new EcommerceUsers();
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("hash");
+            user.setFirstName("First");
+            user.setLastName("Last");
+            entityManager.persist(user);
+
+            Orders order = new Orders();
+            order.setUserId(user.getId());
+            order.setTotalAmount(BigDecimal.TEN);
+            order.setStatus("COMPLETED");
+            entityManager.persist(order);
+
+            for (Long productId : productIds) {
+                PurchasedProducts item = new PurchasedProducts();
+                item.setOrderId(order.getId());
+                item.setUserId(user.getId());
+                item.setProductId(productId);
+                item.setQuantity(1);
+                item.setPriceAtPurchase(BigDecimal.TEN);
+                entityManager.persist(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.models.RecentOrderResponse;
+import com.ecommerce.ecommerce.repositories.OrderRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.PurchasedProductRepository;
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import com.ecommerce.ecommerce.schemas.EcommerceUsers;
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stitching of orders, buyers and line items over mocked repositories. The statements actually sent to the
+ * database are counted in {@link RecentOrderLoaderQueryCountTest}.
+ */
+class RecentOrderLoaderTest {
+
+    private static final int ITEMS_PER_ORDER = 5;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PurchasedProductRepository purchasedProductRepository = mock(PurchasedProductRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    private final RecentOrderLoader loader =
+            new RecentOrderLoader(orderRepository, userRepository, purchasedProductRepository, productRepository);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void repositoryCallsDoNotDependOnLimit(int limit) {
+        seed(limit);
+
+        List<RecentOrderResponse> orders = loader.load(limit);
+
+        assertThat(orders).hasSize(limit);
+        assertThat(orders.get(0).getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(orders.get(0).getUserEmail()).isEqualTo("user1@example.com");
+        assertThat(orders.get(0).getItems().get(0).getProductTitle()).isEqualTo("Product 1");
+        assertThat(repositoryCalls()).isEqualTo(4);
+    }
+
+    @Test
+    void noOrdersMeansOneRepositoryCall() {
+        when(orderRepository.findAllByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(loader.load(10)).isEmpty();
+        assertThat(repositoryCalls()).isEqualTo(1);
+    }
+
+    private void seed(int orderCount) {
+        List<Orders> orders = new ArrayList<>();
+        List<EcommerceUsers> users = new ArrayList<>();
+        List<PurchasedProducts> items = new ArrayList<>();
+        List<Products> products = new ArrayList<>();
+
+        for (long i = 1; i <= orderCount; i++) {
+            Orders order = new Orders();
+            order.setId(i);
+            order.setUserId(i);
+            order.setTotalAmount(BigDecimal.TEN);
+            order.setStatus("COMPLETED");
+            orders.add(order);
+
+            EcommerceUsers user = new EcommerceUsers();
+            user.setId(i);
+            user.setEmail("user" + i + "@example.com");
+            users.add(user);
+
+            for (long j = 1; j <= ITEMS_PER_ORDER; j++) {
+                PurchasedProducts item = new PurchasedProducts();
+                item.setOrderId(i);
+                item.setProductId(j);
+                item.setQuantity(1);
+                items.add(item);
+            }
+        }
+        for (long j = 1; j <= ITEMS_PER_ORDER; j++) {
+            Products product = new Products();
+            product.setId(j);
+            product.setTitle("Product " + j);
+            products.add(product);
+        }
+
+        when(orderRepository.findAllByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(orders);
+        when(userRepository.findAllById(anyIterable())).thenReturn(users);
+        when(purchasedProductRepository.findByOrderIdIn(anyCollection())).thenReturn(items);
+        when(productRepository.findAllById(anyIterable())).thenReturn(products);
+    }
+
+    private long repositoryCalls() {
+        return Stream.of(orderRepository, userRepository, purchasedProductRepository, productRepository)
+                .mapToLong(repository -> mockingDetails(repository).getInvocations().size())
+                .sum();
+    }
+}
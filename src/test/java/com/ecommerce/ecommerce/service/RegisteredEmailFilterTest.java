@@ -0,0 +1,66 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegisteredEmailFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RegisteredEmailFilter emailFilter = new RegisteredEmailFilter(userRepository,
+            mock(PlatformTransactionManager.class), meterRegistry, true, 0.01, 1000);
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndStaysNearItsTargetRate() {
+        RegisteredEmailFilter.BloomFilter filter = new RegisteredEmailFilter.BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("stranger" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void everyEmailPassesUntilTheFilterIsBuilt() {
+        assertThat(emailFilter.mightBeRegistered("anyone@example.com")).isTrue();
+    }
+
+    @Test
+    void unknownEmailsAreDefiniteMissesOnceBuilt() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("a@example.com", "b@example.com"));
+        emailFilter.build();
+
+        assertThat(emailFilter.mightBeRegistered("a@example.com")).isTrue();
+        assertThat(emailFilter.mightBeRegistered("new@example.com")).isFalse();
+
+        emailFilter.add("new@example.com");
+        assertThat(emailFilter.mightBeRegistered("new@example.com")).isTrue();
+
+        when(userRepository.findEmailsCreatedSince(any())).thenReturn(List.of("elsewhere@example.com"));
+        emailFilter.pollNewUsers();
+        assertThat(emailFilter.mightBeRegistered("elsewhere@example.com")).isTrue();
+        assertThat(meterRegistry.get("auth.email.filter.lookups").tag("result", "definite_miss").counter().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.schemas.Orders;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.ecommerce.ecommerce.schemas.PurchasedProducts;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The incremental and rebuild paths against a real PostgreSQL: both must apply the same status rule, so
+ * a rebuild never changes what the dashboard shows.
+ */
+class SalesRollupServiceTest {
+
+    private static final LocalDateTime PLACED_AT = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusMinutes(5);
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    private final SalesRollupService rollups = new SalesRollupService(jdbcTemplate, transactionTemplate);
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE products (id bigint PRIMARY KEY, price numeric(10, 2), category_id bigint)");
+        jdbcTemplate.execute("CREATE TABLE orders (id bigint PRIMARY KEY, total_amount numeric(10, 2), " +
+                "status varchar(20), created_at timestamp)");
+        jdbcTemplate.execute("CREATE TABLE purchased_products (id bigint PRIMARY KEY, product_id bigint, " +
+                "order_id bigint, quantity int, price_at_purchase numeric(10, 2), created_at timestamp)");
+        for (String rollup : new String[]{"product_sales_rollup (product_id", "category_sales_rollup (category_id",
+                "hourly_sales_rollup (bucket_start"}) {
+            String keyType = rollup.endsWith("bucket_start") ? "timestamp" : "bigint";
+            jdbcTemplate.execute("CREATE TABLE " + rollup + " " + keyType + " PRIMARY KEY, items_sold bigint, " +
+                    "revenue numeric(14, 2), order_count bigint, updated_at timestamp)");
+        }
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void history() {
+        for (String table : new String[]{"products", "orders", "purchased_products", "product_sales_rollup",
+                "category_sales_rollup", "hourly_sales_rollup"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        jdbcTemplate.update("INSERT INTO products (id, price, category_id) VALUES (1, 10, 7)");
+    }
+
+    @Test
+    void everyOrderIsCountedButOnlyCompletedOrdersEarnRevenue() {
+        record(order(1L, "COMPLETED", 20), item(1L, 1L, 2));
+        record(order(2L, "PENDING", 30), item(2L, 2L, 3));
+        List<Map<String, Object>> incremental = snapshot();
+
+        rollups.rebuild();
+
+        assertThat(snapshot()).isEqualTo(incremental);
+        assertThat(jdbcTemplate.queryForMap("SELECT items_sold, revenue, order_count FROM hourly_sales_rollup"))
+                .containsEntry("items_sold", 5L)
+                .containsEntry("revenue", new BigDecimal("20.00"))
+                .containsEntry("order_count", 2L);
+        assertThat(jdbcTemplate.queryForMap("SELECT items_sold, revenue, order_count FROM product_sales_rollup"))
+                .containsEntry("items_sold", 5L)
+                .containsEntry("revenue", new BigDecimal("20.00"))
+                .containsEntry("order_count", 2L);
+        assertThat(jdbcTemplate.queryForMap("SELECT category_id, revenue FROM category_sales_rollup"))
+                .containsEntry("category_id", 7L)
+                .containsEntry("revenue", new BigDecimal("20.00"));
+    }
+
+    /**
+     * Saves the order and its item and records them, in one transaction like the purchase path.
+     */
+    private void record(Orders order, PurchasedProducts item) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO orders (id, total_amount, status, created_at) VALUES (?, ?, ?, ?)",
+                    order.getId(), order.getTotalAmount(), order.getStatus(), order.getCreatedAt());
+            jdbcTemplate.update("INSERT INTO purchased_products " +
+                            "(id, product_id, order_id, quantity, price_at_purchase) VALUES (?, ?, ?, ?, ?)",
+                    item.getId(), item.getProductId(), item.getOrderId(), item.getQuantity(),
+                    item.getPriceAtPurchase());
+            Products product = new Products();
+            product.setId(1L);
+            product.setPrice(BigDecimal.TEN);
+            product.setCategoryId(7L);
+            rollups.recordOrder(order, List.of(item), Map.of(1L, product));
+        });
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList(
+                "SELECT 'product' AS rollup, product_id AS key, items_sold, revenue, order_count " +
+                        "FROM product_sales_rollup UNION ALL " +
+                        "SELECT 'category', category_id, items_sold, revenue, order_count " +
+                        "FROM category_sales_rollup UNION ALL " +
+                        "SELECT 'hour', extract(epoch FROM bucket_start)::bigint, items_sold, revenue, order_count " +
+                        "FROM hourly_sales_rollup ORDER BY 1, 2");
+    }
+
+    private static Orders order(Long id, String status, int total) {
+        Orders order = new Orders();
+        order.setId(id);
+        order.setStatus(status);
+        order.setTotalAmount(BigDecimal.valueOf(total));
+        order.setCreatedAt(PLACED_AT);
+        return order;
+    }
+
+    private static PurchasedProducts item(Long id, Long orderId, int quantity) {
+        PurchasedProducts item = new PurchasedProducts();
+        item.setId(id);
+        item.setProductId(1L);
+        item.setOrderId(orderId);
+        item.setQuantity(quantity);
+        item.setPriceAtPurchase(BigDecimal.TEN);
+        return item;
+    }
+}
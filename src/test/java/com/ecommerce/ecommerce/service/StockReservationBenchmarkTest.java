@@ -0,0 +1,201 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import com.ecommerce.ecommerce.repositories.ProductRepositoryCustomImpl;
+import com.ecommerce.ecommerce.schemas.Products;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Purchase throughput on one hot product from 200 concurrent buyers against a real PostgreSQL: the conditional
+ * UPDATE, which queues buyers on the product's row lock, against the in-memory ledger with its 200 ms
+ * write-back. Each purchase also inserts a line item in the same transaction, as the purchase path does. Not
+ * part of the normal build; run with {@code mvn test -Pbenchmark}. Throughput is printed, not asserted; only
+ * the absence of oversell is.
+ */
+@Tag("benchmark")
+class StockReservationBenchmarkTest {
+
+    private static final long HOT_PRODUCT = 1L;
+    private static final int BUYERS = 200;
+    private static final int PURCHASES_PER_BUYER = 50;
+    private static final int STOCK = BUYERS * PURCHASES_PER_BUYER / 2;
+
+    private static EmbeddedPostgres postgres;
+    private static HikariDataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final ProductRepositoryCustomImpl stockUpdates = stockUpdates();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        dataSource.setUsername("postgres");
+        // the application's default pool size
+        dataSource.setMaximumPoolSize(10);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(
+                "CREATE TABLE products (id bigint PRIMARY KEY, quantity int NOT NULL, updated_at timestamp)");
+        jdbcTemplate.execute("CREATE TABLE purchased_products (id bigserial PRIMARY KEY, product_id bigint)");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @BeforeEach
+    void stock() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM purchased_products");
+        jdbcTemplate.update("INSERT INTO products (id, quantity) VALUES (?, ?)", HOT_PRODUCT, STOCK);
+    }
+
+    @Test
+    void conditionalUpdateAgainstLedgerOnOneHotProduct() throws Exception {
+        // warm up connections and the JIT on the conditional path, then reset the stock
+        run("warm-up", () -> stockUpdates.decrementStock(HOT_PRODUCT, 1) == 1);
+        stock();
+
+        int soldByUpdate = run("conditional UPDATE", () -> stockUpdates.decrementStock(HOT_PRODUCT, 1) == 1);
+        assertThat(soldByUpdate).isEqualTo(STOCK);
+        assertThat(quantity()).isZero();
+
+        stock();
+        StockReservationLedger ledger = new StockReservationLedger(ledgerRepository(),
+                new DataSourceTransactionManager(dataSource), mock(CatalogResponseCache.class), Set.of(HOT_PRODUCT));
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(ledger::flush, 200, 200, TimeUnit.MILLISECONDS);
+        int soldByLedger;
+        try {
+            soldByLedger = run("ledger", () -> ledger.tryReserve(HOT_PRODUCT, 1));
+        } finally {
+            flusher.shutdown();
+            assertThat(flusher.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        ledger.flush();
+        assertThat(soldByLedger).isEqualTo(STOCK);
+        assertThat(quantity()).isZero();
+    }
+
+    /**
+     * Every buyer makes {@link #PURCHASES_PER_BUYER} attempts, each in its own transaction that takes one unit
+     * and records a line item, or rolls back when sold out. Prints purchases per second and returns how many
+     * committed.
+     */
+    private int run(String path, Purchase purchase) throws Exception {
+        AtomicInteger committed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < PURCHASES_PER_BUYER; attempt++) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (purchase.take()) {
+                            jdbcTemplate.update("INSERT INTO purchased_products (product_id) VALUES (?)", HOT_PRODUCT);
+                            committed.incrementAndGet();
+                        } else {
+                            status.setRollbackOnly();
+                        }
+                    });
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+        int attempts = BUYERS * PURCHASES_PER_BUYER;
+        System.out.printf("Stock: %-18s %,6d attempts, %,6d sold in %5.2f s, %,8.0f attempts/s%n",
+                path, attempts, committed.get(), seconds, attempts / seconds);
+        return committed.get();
+    }
+
+    private int quantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, HOT_PRODUCT);
+    }
+
+    /**
+     * The ledger's view of the repository: its reads and write-backs go to the same table as the conditional path.
+     */
+    private ProductRepository ledgerRepository() {
+        ProductRepository repository = mock(ProductRepository.class, withSettings().stubOnly());
+        when(repository.findQuantityById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(jdbcTemplate
+                .queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class,
+                        invocation.<Long>getArgument(0))));
+        when(repository.decrementStock(anyLong(), anyInt())).thenAnswer(invocation ->
+                stockUpdates.decrementStock(invocation.getArgument(0), invocation.getArgument(1)));
+        when(repository.drainStock(anyLong(), anyInt())).thenAnswer(invocation ->
+                stockUpdates.drainStock(invocation.getArgument(0), invocation.getArgument(1)));
+        return repository;
+    }
+
+    /**
+     * The real conditional UPDATEs, with the second-level cache reduced to a stub that records nothing.
+     */
+    private static ProductRepositoryCustomImpl stockUpdates() {
+        EntityDataAccess cacheAccess = mock(EntityDataAccess.class, withSettings().stubOnly());
+        SessionFactoryImplementor sessionFactory =
+                mock(SessionFactoryImplementor.class, withSettings().stubOnly().defaultAnswer(RETURNS_DEEP_STUBS));
+        when(sessionFactory.getMappingMetamodel().getEntityDescriptor(Products.class).getCacheAccessStrategy())
+                .thenReturn(cacheAccess);
+        when(cacheAccess.generateCacheKey(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class, withSettings().stubOnly());
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        EntityManager entityManager = mock(EntityManager.class, withSettings().stubOnly());
+        when(entityManager.unwrap(SharedSessionContractImplementor.class))
+                .thenReturn(mock(SharedSessionContractImplementor.class, withSettings().stubOnly()));
+        return new ProductRepositoryCustomImpl(new JdbcTemplate(dataSource), entityManagerFactory, entityManager);
+    }
+
+    @FunctionalInterface
+    private interface Purchase {
+        boolean take();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockReservationLedgerTest {
+
+    private static final long HOT_PRODUCT = 42L;
+    private static final int STOCK = 1_000;
+    private static final int THREADS = 200;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockReservationLedger ledger =
+            new StockReservationLedger(productRepository, mock(PlatformTransactionManager.class),
+                    mock(CatalogResponseCache.class), Set.of(HOT_PRODUCT));
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        when(productRepository.findQuantityById(HOT_PRODUCT)).thenReturn(Optional.of(STOCK));
+        when(productRepository.decrementStock(eq(HOT_PRODUCT), anyInt())).thenReturn(1);
+
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (ledger.tryReserve(HOT_PRODUCT, 1)) {
+                        sold.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(ledger.availableFor(HOT_PRODUCT)).isZero();
+        verify(productRepository, times(1)).findQuantityById(HOT_PRODUCT);
+
+        ledger.flush();
+        verify(productRepository).decrementStock(HOT_PRODUCT, STOCK);
+    }
+
+    @Test
+    void aFailedWriteBackIsRetriedInFullAndDoesNotStopTheFlush() {
+        long otherProduct = 43L;
+        StockReservationLedger ledger = new StockReservationLedger(productRepository,
+                mock(PlatformTransactionManager.class), mock(CatalogResponseCache.class),
+                Set.of(HOT_PRODUCT, otherProduct));
+        when(productRepository.findQuantityById(anyLong())).thenReturn(Optional.of(STOCK));
+        when(productRepository.decrementStock(eq(HOT_PRODUCT), anyInt()))
+                .thenThrow(new QueryTimeoutException("timed out"))
+                .thenReturn(1);
+        when(productRepository.decrementStock(eq(otherProduct), anyInt())).thenReturn(1);
+        assertThat(ledger.tryReserve(HOT_PRODUCT, 3)).isTrue();
+        assertThat(ledger.tryReserve(otherProduct, 2)).isTrue();
+
+        ledger.flush();
+        verify(productRepository).decrementStock(otherProduct, 2);
+
+        assertThat(ledger.tryReserve(HOT_PRODUCT, 1)).isTrue();
+        ledger.flush();
+        verify(productRepository).decrementStock(HOT_PRODUCT, 4);
+    }
+
+    @Test
+    void unmanagedProductsAreNotReserved() {
+        assertThat(ledger.manages(7L)).isFalse();
+        assertThat(ledger.manages(HOT_PRODUCT)).isTrue();
+    }
+
+    @Test
+    void missingProductCannotBeReserved() {
+        when(productRepository.findQuantityById(HOT_PRODUCT)).thenReturn(Optional.empty());
+
+        assertThat(ledger.tryReserve(HOT_PRODUCT, 1)).isFalse();
+    }
+}
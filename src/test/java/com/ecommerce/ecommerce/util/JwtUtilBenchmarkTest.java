@@ -0,0 +1,70 @@
+package com.ecommerce.ecommerce.util;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token verification throughput over 1000 distinct tokens, single-threaded: the earlier per-call key and
+ * parser, a parser built once, and {@link JwtUtil} with its verified-claims cache. Each path is warmed up
+ * before it is timed. Not part of the normal build; run with {@code mvn test -Pbenchmark}. Numbers are
+ * printed, not asserted.
+ */
+@Tag("benchmark")
+class JwtUtilBenchmarkTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final int TOKENS = 1000;
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 10_000, new SimpleMeterRegistry());
+
+    @Test
+    void verificationThroughput() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(jwtUtil.generateToken("user" + i + "@example.com", (long) i, false));
+        }
+        JwtParser prebuilt = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build();
+
+        // what extractClaims did before: a new key and parser for every call
+        run("per-call key and parser", tokens, 20_000, token -> Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token).getBody().getSubject().length());
+        run("prebuilt parser", tokens, 500_000,
+                token -> prebuilt.parseClaimsJws(token).getBody().getSubject().length());
+        run("cached claims", tokens, 2_000_000, token -> jwtUtil.extractSubject(token).length());
+    }
+
+    /**
+     * Verifies {@code operations} tokens round-robin, twice: once to warm up and once timed. Prints
+     * verifications per second.
+     */
+    private static void run(String path, List<String> tokens, int operations, ToIntFunction<String> verify) {
+        long sink = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long began = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                sink += verify.applyAsInt(tokens.get(i % TOKENS));
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+            if (pass == 1) {
+                System.out.printf("Jwt: %-24s %,10d verifications in %5.2f s, %,10.0f ops/s%n",
+                        path, operations, seconds, operations / seconds);
+            }
+        }
+        // the subjects' lengths, so the verifications cannot be optimised away
+        assertThat(sink).isPositive();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.ecommerce.util;
+
+import com.ecommerce.ecommerce.models.AuthenticatedUser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, meterRegistry);
+
+    @Test
+    void repeatedVerificationIsServedFromTheCache() {
+        String token = jwtUtil.generateToken("a@b.com", 7L, false);
+
+        assertThat(jwtUtil.extractSubject(token)).isEqualTo("a@b.com");
+        assertThat(jwtUtil.validateToken(token)).isTrue();
+        assertThat(jwtUtil.extractSubject(token)).isEqualTo("a@b.com");
+
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreRejected() throws Exception {
+        String token = jwtUtil.generateToken("a@b.com", 7L, false);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThat(jwtUtil.validateToken(tampered)).isFalse();
+
+        JwtUtil shortLived = new JwtUtil(SECRET, 1_000, 100, meterRegistry);
+        String expiring = shortLived.generateToken("a@b.com", 7L, false);
+        assertThat(shortLived.validateToken(expiring)).isTrue();
+        Thread.sleep(1_100);
+        assertThat(shortLived.validateToken(expiring)).isFalse();
+    }
+
+    @Test
+    void userIdAndAdminFlagAreCarriedInTheToken() {
+        AuthenticatedUser user = jwtUtil.extractUser(jwtUtil.generateToken("admin@b.com", 42L, true));
+
+        assertThat(user).isEqualTo(new AuthenticatedUser(42L, "admin@b.com", true));
+    }
+
+    @Test
+    void tokensWithoutUserIdResolveToTheEmailOnly() {
+        String legacy = Jwts.builder()
+                .setSubject("a@b.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil.extractUser(legacy)).isEqualTo(new AuthenticatedUser(null, "a@b.com", false));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt.claims").tag("result", result)
+                .functionCounter().count();
+    }
+}